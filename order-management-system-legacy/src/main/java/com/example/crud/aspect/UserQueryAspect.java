@@ -16,6 +16,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 import com.example.crud.model.User;
+import com.example.crud.service.AppUserPrincipal;
 import com.example.crud.service.UserQueryService;
 import com.example.crud.service.UserService;
 
@@ -101,6 +102,10 @@ public class UserQueryAspect {
     // Helper method to get current user
     private User getCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof AppUserPrincipal) {
+            // The logged-in user already carries its id, which is all the log entry references
+            return ((AppUserPrincipal) authentication.getPrincipal()).toUser();
+        }
         if (authentication != null && authentication.isAuthenticated() && !"anonymousUser".equals(authentication.getName())) {
             try {
                 Optional<User> user = userService.getUserByUsername(authentication.getName());
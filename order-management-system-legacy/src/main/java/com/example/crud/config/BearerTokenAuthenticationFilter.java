@@ -0,0 +1,63 @@
+package com.example.crud.config;
+
+import com.example.crud.service.AccessTokenService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * Authenticates requests carrying an "Authorization: Bearer" access token from POST /api/auth/token.
+ * An invalid or expired token is answered with 401 right away rather than falling back to another login.
+ * Created by {@link SecurityConfig} for the stateless filter chain only, so it is not a bean of its own.
+ */
+public class BearerTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    static final String PREFIX = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public BearerTokenAuthenticationFilter(AccessTokenService accessTokenService) {
+        this.accessTokenService = accessTokenService;
+    }
+
+    static boolean hasBearerToken(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return header != null && header.regionMatches(true, 0, PREFIX, 0, PREFIX.length());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!hasBearerToken(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        String token = request.getHeader(HttpHeaders.AUTHORIZATION).substring(PREFIX.length()).trim();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        try {
+            context.setAuthentication(accessTokenService.verify(token));
+        } catch (AuthenticationException e) {
+            SecurityContextHolder.clearContext();
+            response.setStatus(HttpStatus.UNAUTHORIZED.value());
+            response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            objectMapper.writeValue(response.getOutputStream(), Collections.singletonMap("message", e.getMessage()));
+            return;
+        }
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.crud.config;
+
+import org.springframework.boot.autoconfigure.cache.CacheProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+@EnableConfigurationProperties(CacheProperties.class)
+public class CacheConfig {
+
+    // Recent orders of one user, keyed by user id
+    public static final String USER_ORDERS = "userOrders";
+
+    @Bean
+    public CacheManager cacheManager(CacheProperties cacheProperties) {
+        // Caches and their size/TTL bounds come from spring.cache.cache-names and spring.cache.caffeine.spec
+        CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
+        caffeineCacheManager.setCacheSpecification(cacheProperties.getCaffeine().getSpec());
+        caffeineCacheManager.setCacheNames(cacheProperties.getCacheNames());
+        // Evictions issued inside a transaction are applied only once it commits
+        return new TransactionAwareCacheManagerProxy(caffeineCacheManager);
+    }
+}
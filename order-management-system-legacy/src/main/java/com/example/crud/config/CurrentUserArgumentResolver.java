@@ -0,0 +1,36 @@
+package com.example.crud.config;
+
+import com.example.crud.service.AppUserPrincipal;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.security.Principal;
+
+/**
+ * Passes the logged-in {@link AppUserPrincipal} to controller methods declaring a parameter of that type,
+ * straight from the request's authentication and without a user query.
+ */
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return AppUserPrincipal.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Principal principal = webRequest.getUserPrincipal();
+        if (principal instanceof Authentication
+                && ((Authentication) principal).getPrincipal() instanceof AppUserPrincipal) {
+            return ((Authentication) principal).getPrincipal();
+        }
+        // Handled by Spring Security like any unauthenticated request
+        throw new AuthenticationCredentialsNotFoundException("No authenticated user");
+    }
+}
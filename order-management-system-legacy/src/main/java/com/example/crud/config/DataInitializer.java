@@ -10,12 +10,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.LocalDate;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 @Configuration
@@ -81,11 +84,15 @@ public class DataInitializer {
                 User adminUser = userRepository.findByUsername("admin").orElse(null);
                 
                 if (regularUser != null && adminUser != null) {
-                    Product laptop = productRepository.findById(1L).orElse(null);
-                    Product smartphone = productRepository.findById(2L).orElse(null);
-                    Product tablet = productRepository.findById(3L).orElse(null);
+                    // Ids are time-ordered, so the first products by id are the first ones created
+                    List<Product> firstProducts = productRepository.findAll(PageRequest.of(0, 3, Sort.by("id"))).getContent();
                     
-                    if (laptop != null && smartphone != null && tablet != null) {                        // Create orders for regular user
+                    if (firstProducts.size() == 3) {
+                        Product laptop = firstProducts.get(0);
+                        Product smartphone = firstProducts.get(1);
+                        Product tablet = firstProducts.get(2);
+
+                        // Create orders for regular user
                         Order order1 = new Order(LocalDate.now(), regularUser, laptop, 1, "Need urgent delivery");
                         orderRepository.save(order1);
                         
@@ -0,0 +1,86 @@
+package com.example.crud.config;
+
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level and query cache, held in Caffeine through JCache.
+ * <p>
+ * Every region is created here, bounded by hibernate-cache.maximum-size entries that expire
+ * hibernate-cache.expire-after-write after being stored, and the cache manager is handed to Hibernate ready made.
+ * The update timestamps region is never bounded: the query cache relies on it to drop results read from tables
+ * written since, and a lost entry would let stale results through. Hits, misses, puts and evictions of every
+ * region are published as cache.* metrics tagged cache.manager=hibernate.
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String PRODUCTS = Product.class.getName();
+    public static final String USERS = User.class.getName();
+    public static final String QUERY_RESULTS = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${hibernate-cache.maximum-size:10000}") long maximumSize,
+                                              @Value("${hibernate-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        // JCache providers are JVM-wide; a manager of its own keeps a second application context from clashing
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : new String[]{PRODUCTS, USERS, QUERY_RESULTS}) {
+            cacheManager.createCache(region, region(OptionalLong.of(maximumSize),
+                    OptionalLong.of(expireAfterWrite.toNanos())));
+        }
+        cacheManager.createCache(UPDATE_TIMESTAMPS, region(OptionalLong.empty(), OptionalLong.empty()));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            // A region missing above is a mapping mistake, not something to create unbounded
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String region : hibernateCacheManager.getCacheNames()) {
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region),
+                        Tags.of("cache.manager", "hibernate"));
+            }
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(OptionalLong maximumSize, OptionalLong expireAfterWrite) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(maximumSize);
+        configuration.setExpireAfterWrite(expireAfterWrite);
+        // Hibernate stores immutable disassembled state, so copying entries on every read and write buys nothing
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.crud.config;
+
+import com.example.crud.model.Role;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves roles out of the user_roles collection table, where they were kept before users.role_mask.
+ * <p>
+ * Runs once at startup, after Hibernate has added the role_mask column and before the web server accepts
+ * requests: each user's mask is set from its user_roles rows, then the table is dropped. The masks are set
+ * rather than added to, so a migration interrupted before the drop is simply repeated on the next start.
+ */
+@Component
+public class RoleMaskMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoleMaskMigration.class);
+    private static final String LEGACY_TABLE = "user_roles";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // The entity manager factory is only required so the schema is up to date before this runs
+    public RoleMaskMigration(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (legacyTableExists()) {
+            int users = migrate();
+            logger.info("Migrated the roles of {} users from {} to users.role_mask", users, LEGACY_TABLE);
+        }
+    }
+
+    /**
+     * Copy the roles of every user from user_roles into users.role_mask and drop user_roles
+     * @return The number of users whose roles were copied
+     */
+    int migrate() {
+        Map<Long, Integer> masks = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT user_id, role FROM " + LEGACY_TABLE, (ResultSet row) -> {
+            long userId = row.getLong(1);
+            String role = row.getString(2);
+            try {
+                masks.merge(userId, Role.toMask(Collections.singleton(role)), (a, b) -> a | b);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Dropping unknown role '{}' of user {}", role, userId);
+            }
+        });
+        List<Object[]> updates = new ArrayList<>(masks.size());
+        masks.forEach((userId, mask) -> updates.add(new Object[]{mask, userId}));
+        jdbcTemplate.batchUpdate("UPDATE users SET role_mask = ? WHERE id = ?", updates);
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+        return masks.size();
+    }
+
+    private boolean legacyTableExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Stored in lower case by MySQL on Linux, in upper case by H2
+            for (String name : new String[]{LEGACY_TABLE, LEGACY_TABLE.toUpperCase()}) {
+                try (ResultSet tables = metaData.getTables(connection.getCatalog(), null, name, new String[]{"TABLE"})) {
+                    if (tables.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
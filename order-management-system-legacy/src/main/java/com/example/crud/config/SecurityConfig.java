@@ -1,15 +1,21 @@
 package com.example.crud.config;
 
+import com.example.crud.service.AccessTokenService;
 import com.example.crud.service.CustomUserDetailsService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.ExpressionUrlAuthorizationConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -19,17 +25,28 @@ public class SecurityConfig {
 
     public SecurityConfig(CustomUserDetailsService userDetailsService) {
         this.userDetailsService = userDetailsService;
-    }    @Bean
+    }
+
+    // Requests carrying a bearer token: checked by signature alone, with no session, login form or Basic fallback
+    @Bean
+    @Order(1)
+    public SecurityFilterChain bearerTokenFilterChain(HttpSecurity http, AccessTokenService accessTokenService) throws Exception {
+        http
+            .requestMatcher(BearerTokenAuthenticationFilter::hasBearerToken)
+            .csrf().disable()
+            .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+            .and()
+            .addFilterBefore(new BearerTokenAuthenticationFilter(accessTokenService), BasicAuthenticationFilter.class);
+        authorizeRequests(http);
+
+        return http.build();
+    }
+
+    @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
-            .csrf().disable()  // Disable CSRF for API requests
-            .authorizeRequests()
-                .antMatchers("/css/**", "/js/**", "/images/**").permitAll()
-                .antMatchers("/api/orders/**").authenticated() // Authenticated users can access their orders via API
-                .antMatchers("/api/**").hasRole("API_USER")
-                .antMatchers("/users/**").hasRole("ADMIN")
-                .antMatchers("/admin/**").hasRole("ADMIN")
-                .anyRequest().authenticated()
+            .csrf().disable();  // Disable CSRF for API requests
+        authorizeRequests(http)
             .and()
             .formLogin()
                 .loginPage("/login")
@@ -40,11 +57,29 @@ public class SecurityConfig {
                 .logoutSuccessUrl("/login?logout")
                 .permitAll()
             .and()
-            .httpBasic();  // Basic auth for API requests
+            .httpBasic();  // Basic auth for API requests; passwords are checked by CachingAuthenticationProvider
         
         return http.build();
     }
 
+    // The same access rules apply however the request was authenticated
+    private ExpressionUrlAuthorizationConfigurer<HttpSecurity>.ExpressionInterceptUrlRegistry authorizeRequests(
+            HttpSecurity http) throws Exception {
+        return http
+            .authorizeRequests()
+                .antMatchers("/css/**", "/js/**", "/images/**").permitAll()
+                .antMatchers(HttpMethod.POST, "/api/auth/token").permitAll() // Exchanges a password for a bearer token
+                .antMatchers("/api/reports/**").hasRole("ADMIN")
+                .antMatchers("/api/orders/export").hasRole("ADMIN")
+                .antMatchers("/api/orders/**").authenticated() // Authenticated users can access their orders via API
+                .antMatchers(HttpMethod.GET, "/api/products/suggest").authenticated() // Used by the order form
+                .antMatchers("/api/**").hasRole("API_USER")
+                .antMatchers("/users/**").hasRole("ADMIN")
+                .antMatchers("/admin/**").hasRole("ADMIN")
+                .antMatchers("/actuator/metrics/**").hasRole("ADMIN")
+                .anyRequest().authenticated();
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -3,8 +3,11 @@ package com.example.crud.config;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
 import org.springframework.format.datetime.standard.DateTimeFormatterRegistrar;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
 public class WebConfig implements WebMvcConfigurer {    @Override
     public void addFormatters(FormatterRegistry registry) {
@@ -30,4 +33,10 @@ public class WebConfig implements WebMvcConfigurer {    @Override
             }
         });
     }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        // Controllers take the current user as an AppUserPrincipal parameter
+        resolvers.add(new CurrentUserArgumentResolver());
+    }
 }
@@ -0,0 +1,49 @@
+package com.example.crud.controller;
+
+import com.example.crud.dto.TokenRequest;
+import com.example.crud.service.AccessTokenService;
+import com.example.crud.service.AppUserPrincipal;
+import com.example.crud.service.CachingAuthenticationProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/auth")
+public class AuthController {
+
+    private final CachingAuthenticationProvider authenticationProvider;
+    private final AccessTokenService accessTokenService;
+
+    @Autowired
+    public AuthController(CachingAuthenticationProvider authenticationProvider, AccessTokenService accessTokenService) {
+        this.authenticationProvider = authenticationProvider;
+        this.accessTokenService = accessTokenService;
+    }
+
+    // Exchange a username and password for a signed access token, sent as "Authorization: Bearer <token>"
+    @PostMapping("/token")
+    public ResponseEntity<?> issueToken(@Valid @RequestBody TokenRequest request) {
+        Authentication authentication;
+        try {
+            authentication = authenticationProvider.authenticate(
+                    new UsernamePasswordAuthenticationToken(request.getUsername(), request.getPassword()));
+        } catch (AuthenticationException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("message", "Invalid username or password");
+            return new ResponseEntity<>(error, HttpStatus.UNAUTHORIZED);
+        }
+        return ResponseEntity.ok(accessTokenService.issue((AppUserPrincipal) authentication.getPrincipal()));
+    }
+}
@@ -1,16 +1,27 @@
 package com.example.crud.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
-import javax.persistence.EntityNotFoundException;
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,128 +29,281 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.IntakeStatus;
+import com.example.crud.dto.KeysetPage;
+import com.example.crud.dto.OrderCursor;
+import com.example.crud.dto.OrderSearchCriteria;
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.exception.InvalidRequestException;
 import com.example.crud.model.Order;
 import com.example.crud.model.User;
+import com.example.crud.service.AppUserPrincipal;
+import com.example.crud.service.ContentHash;
+import com.example.crud.service.OrderExportService;
+import com.example.crud.service.OrderIntakeService;
 import com.example.crud.service.OrderService;
-import com.example.crud.service.UserService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_MULTI_GET_IDS = 500;
+
     private final OrderService orderService;
-    private final UserService userService;
+    private final OrderIntakeService orderIntakeService;
+    private final OrderExportService orderExportService;
+    private final ObjectMapper objectMapper;
+    private final ObjectReader orderReader;
+
+    @Value("${orders.batch.chunk-size:500}")
+    private int batchChunkSize;
 
     @Autowired
-    public OrderController(OrderService orderService, UserService userService) {
+    public OrderController(OrderService orderService, OrderIntakeService orderIntakeService,
+                           OrderExportService orderExportService, ObjectMapper objectMapper) {
         this.orderService = orderService;
-        this.userService = userService;
+        this.orderIntakeService = orderIntakeService;
+        this.orderExportService = orderExportService;
+        this.objectMapper = objectMapper;
+        this.orderReader = objectMapper.readerFor(Order.class);
     }
 
-    // Get all orders (admin only)
+    // Get all orders (admin only), one keyset page at a time, newest first.
+    // Order lists carry a strong ETag hashed from a narrow query over the same rows, and a matching If-None-Match
+    // is answered with 304 before the page is loaded
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        List<Order> orders = orderService.getAllOrders();
-        return new ResponseEntity<>(orders, HttpStatus.OK);
+    public ResponseEntity<KeysetPage<OrderSummary>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "100") int limit,
+                                                                 WebRequest request) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        OrderCursor after = OrderCursor.decode(cursor);
+        String etag = ContentHash.toETag(orderService.getOrdersPageHash(after, pageSize));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        KeysetPage<OrderSummary> page = orderService.getOrdersPage(after, pageSize);
+        return ResponseEntity.ok().eTag(etag).body(page);
+    }
+
+    // Stream every order as one JSON array, written row by row from a database cursor
+    @GetMapping(params = "stream=true")
+    public void streamAllOrders(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            orderService.streamAllOrders(order -> {
+                try {
+                    generator.writeObject(order);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+        }
+    }
+
+    // Search orders by date range, product, user and quantity, newest first; non-admins only see their own
+    @GetMapping("/search")
+    public ResponseEntity<KeysetPage<OrderSummary>> searchOrders(OrderSearchCriteria criteria,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "100") int limit,
+                                                                 AppUserPrincipal currentUser,
+                                                                 WebRequest request) {
+        if (!currentUser.isAdmin()) {
+            criteria.setUserId(currentUser.getId());
+        }
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        OrderCursor after = OrderCursor.decode(cursor);
+        String etag = ContentHash.toETag(orderService.searchOrdersHash(criteria, after, pageSize));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        KeysetPage<OrderSummary> page = orderService.searchOrders(criteria, after, pageSize);
+        return ResponseEntity.ok().eTag(etag).body(page);
     }
 
-    // Get current user's orders    @GetMapping("/my-orders")
-    public ResponseEntity<List<Order>> getMyOrders(Authentication authentication) {
-        User currentUser = userService.getUserByUsername(authentication.getName())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        List<Order> orders = orderService.getOrdersByUser(currentUser);
+    // Export orders placed in a date range as CSV or NDJSON (admin only), streamed from a database cursor
+    @GetMapping("/export")
+    public void exportOrders(@RequestParam(defaultValue = "csv") String format,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                             @RequestParam(defaultValue = "false") boolean gzip,
+                             HttpServletResponse response) throws IOException {
+        DataFormat exportFormat = DataFormat.of(format);
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidRequestException("'from' must not be after 'to'");
+        }
+        String filename = "orders." + exportFormat.getExtension() + (gzip ? ".gz" : "");
+        response.setContentType(gzip ? "application/gzip" : exportFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"");
+        orderExportService.export(exportFormat, from, to, gzip, response.getOutputStream());
+    }
+
+    // Get current user's orders
+    @GetMapping("/my-orders")
+    public ResponseEntity<List<OrderSummary>> getMyOrders(AppUserPrincipal currentUser, WebRequest request) {
+        String etag = ContentHash.toETag(orderService.getOrderSummariesHashByUserId(currentUser.getId()));
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<OrderSummary> orders = orderService.getOrderSummariesByUserId(currentUser.getId());
+        return ResponseEntity.ok().eTag(etag).body(orders);
+    }
+
+    // Get several orders by id in one query, in request order; each is FOUND, NOT_FOUND or, when it belongs to
+    // someone else and the caller is not an admin, FORBIDDEN
+    @GetMapping("/by-ids")
+    public ResponseEntity<List<BatchGetItem<OrderSummary>>> getOrdersByIds(@RequestParam List<Long> ids,
+                                                                           AppUserPrincipal principal) {
+        if (ids.size() > MAX_MULTI_GET_IDS) {
+            throw new InvalidRequestException("At most " + MAX_MULTI_GET_IDS + " ids per request");
+        }
+        if (ids.contains(null)) {
+            throw new InvalidRequestException("ids must not contain null");
+        }
+        List<BatchGetItem<OrderSummary>> orders = orderService.getOrderSummaries(ids, principal.getUsername(),
+                principal.isAdmin());
         return new ResponseEntity<>(orders, HttpStatus.OK);
     }
 
-    // Get an order by ID
+    // Same as above, for id lists too long for a query string
+    @PostMapping("/by-ids")
+    public ResponseEntity<List<BatchGetItem<OrderSummary>>> getOrdersByIdsPost(@RequestBody List<Long> ids,
+                                                                               AppUserPrincipal principal) {
+        return getOrdersByIds(ids, principal);
+    }
+
+    // Get an order by ID (owner or admin), in a single query
     @GetMapping("/{id}")
-    public ResponseEntity<?> getOrderById(@PathVariable Long id, Authentication authentication) {
-        return orderService.getOrderById(id)                .map(order -> {
-                    // Check if the order belongs to current user or user is admin
-                    User currentUser = userService.getUserByUsername(authentication.getName())
-                            .orElseThrow(() -> new EntityNotFoundException("User not found"));
-                    
-                    boolean isAdmin = authentication.getAuthorities().stream()
-                            .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-                    
-                    if (isAdmin || order.getUser().getId().equals(currentUser.getId())) {
-                        return new ResponseEntity<>(order, HttpStatus.OK);
-                    } else {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("message", "You do not have permission to view this order");
-                        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
-                    }
-                })
-                .orElseGet(() -> {
-                    Map<String, String> error = new HashMap<>();
-                    error.put("message", "Order not found with id: " + id);
-                    return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
-                });
-    }    // Create a new order
+    public ResponseEntity<?> getOrderById(@PathVariable Long id, AppUserPrincipal principal) {
+        return orderService.getOrder(id, principal.getUsername(), principal.isAdmin())
+                .<ResponseEntity<?>>map(order -> ResponseEntity.ok()
+                        .eTag(ContentHash.toETag(ContentHash.of(order)))
+                        .body(order))
+                .orElseGet(() -> notFoundOrForbidden(id, "view"));
+    }
+
+    // Create a new order; with the asynchronous intake enabled it is journaled and answered with 202
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody Order order, Authentication authentication) {
-        User currentUser = userService.getUserByUsername(authentication.getName())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
+    public ResponseEntity<?> createOrder(@Valid @RequestBody Order order, AppUserPrincipal principal) {
+        User currentUser = principal.toUser();
+        if (orderIntakeService.isEnabled()) {
+            try {
+                IntakeStatus status = orderIntakeService.submit(order, currentUser);
+                return ResponseEntity.accepted()
+                        .location(URI.create("/api/orders/intake/" + status.getTrackingId()))
+                        .body(status);
+            } catch (RejectedExecutionException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("message", e.getMessage());
+                return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+            }
+        }
         order.setUser(currentUser);
         Order newOrder = orderService.createOrder(order);
         return new ResponseEntity<>(newOrder, HttpStatus.CREATED);
     }
 
-    // Update an order
+    // Get the progress of an order accepted by the asynchronous intake (owner or admin)
+    @GetMapping("/intake/{trackingId}")
+    public ResponseEntity<?> getIntakeStatus(@PathVariable String trackingId, AppUserPrincipal principal) {
+        Optional<IntakeStatus> status = orderIntakeService.getStatus(trackingId);
+        if (status.isPresent() && (principal.isAdmin()
+                || status.get().getUsername().equals(principal.getUsername()))) {
+            return new ResponseEntity<>(status.get(), HttpStatus.OK);
+        }
+        Map<String, String> error = new HashMap<>();
+        error.put("message", "Unknown tracking id: " + trackingId);
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
+    }
+
+    // Create many orders from a JSON array or an NDJSON stream, inserted in chunked transactions
+    @PostMapping(value = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<List<BatchItemResult>> createOrders(InputStream body, AppUserPrincipal principal) throws IOException {
+        User currentUser = principal.toUser();
+
+        List<BatchItemResult> results = new ArrayList<>();
+        List<Order> chunk = new ArrayList<>(batchChunkSize);
+        int index = 0;
+        // readValues unwraps a top-level array and also accepts whitespace separated documents
+        try (MappingIterator<Order> orders = orderReader.readValues(body)) {
+            while (orders.hasNextValue()) {
+                Order order = orders.nextValue();
+                order.setUser(currentUser);
+                chunk.add(order);
+                if (chunk.size() == batchChunkSize) {
+                    results.addAll(createChunk(chunk, index));
+                    index += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Keep what was already committed and report where the payload became unreadable
+            results.addAll(createChunk(chunk, index));
+            index += chunk.size();
+            chunk.clear();
+            results.add(BatchItemResult.failed(index, "Malformed order: " + e.getOriginalMessage()));
+        }
+        results.addAll(createChunk(chunk, index));
+        return new ResponseEntity<>(results, HttpStatus.OK);
+    }
+
+    private List<BatchItemResult> createChunk(List<Order> chunk, int startIndex) {
+        if (chunk.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try {
+            return orderService.createOrders(chunk, startIndex);
+        } catch (RuntimeException e) {
+            // The chunk transaction was rolled back as a whole
+            List<BatchItemResult> failed = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                failed.add(BatchItemResult.failed(startIndex + i, "Chunk rolled back: " + e.getMessage()));
+            }
+            return failed;
+        }
+    }
+
+    // Update an order (owner or admin)
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateOrder(@PathVariable Long id, @Valid @RequestBody Order order, Authentication authentication) {        return orderService.getOrderById(id)
-                .map(existingOrder -> {
-                    User currentUser = userService.getUserByUsername(authentication.getName())
-                            .orElseThrow(() -> new EntityNotFoundException("User not found"));
-                    
-                    boolean isAdmin = authentication.getAuthorities().stream()
-                            .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-                    
-                    if (isAdmin || existingOrder.getUser().getId().equals(currentUser.getId())) {
-                        order.setId(id);
-                        order.setUser(existingOrder.getUser());
-                        Order updatedOrder = orderService.updateOrder(order);
-                        return new ResponseEntity<>(updatedOrder, HttpStatus.OK);
-                    } else {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("message", "You do not have permission to update this order");
-                        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
-                    }
-                })
-                .orElseGet(() -> {
-                    Map<String, String> error = new HashMap<>();
-                    error.put("message", "Order not found with id: " + id);
-                    return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
-                });
-    }
-
-    // Delete an order
+    public ResponseEntity<?> updateOrder(@PathVariable Long id, @Valid @RequestBody Order order, AppUserPrincipal principal) {
+        return orderService.updateOrder(id, order, principal.getUsername(), principal.isAdmin())
+                .<ResponseEntity<?>>map(updatedOrder -> new ResponseEntity<>(updatedOrder, HttpStatus.OK))
+                .orElseGet(() -> notFoundOrForbidden(id, "update"));
+    }
+
+    // Delete an order (owner or admin)
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteOrder(@PathVariable Long id, Authentication authentication) {        return orderService.getOrderById(id)
-                .map(order -> {
-                    User currentUser = userService.getUserByUsername(authentication.getName())
-                            .orElseThrow(() -> new EntityNotFoundException("User not found"));
-                    
-                    boolean isAdmin = authentication.getAuthorities().stream()
-                            .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-                    
-                    if (isAdmin || order.getUser().getId().equals(currentUser.getId())) {
-                        orderService.deleteOrder(id);
-                        Map<String, String> response = new HashMap<>();
-                        response.put("message", "Order deleted successfully");
-                        return new ResponseEntity<>(response, HttpStatus.OK);
-                    } else {
-                        Map<String, String> error = new HashMap<>();
-                        error.put("message", "You do not have permission to delete this order");
-                        return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
-                    }
-                })
-                .orElseGet(() -> {
-                    Map<String, String> error = new HashMap<>();
-                    error.put("message", "Order not found with id: " + id);
-                    return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
-                });
+    public ResponseEntity<?> deleteOrder(@PathVariable Long id, AppUserPrincipal principal) {
+        if (!orderService.deleteOrder(id, principal.getUsername(), principal.isAdmin())) {
+            return notFoundOrForbidden(id, "delete");
+        }
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Order deleted successfully");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // The ownership-checked lookup found nothing; only now tell a missing order from someone else's
+    private ResponseEntity<Map<String, String>> notFoundOrForbidden(Long id, String action) {
+        Map<String, String> error = new HashMap<>();
+        if (orderService.orderExists(id)) {
+            error.put("message", "You do not have permission to " + action + " this order");
+            return new ResponseEntity<>(error, HttpStatus.FORBIDDEN);
+        }
+        error.put("message", "Order not found with id: " + id);
+        return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     }
 }
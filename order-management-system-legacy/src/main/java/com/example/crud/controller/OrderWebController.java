@@ -6,7 +6,6 @@ import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -15,42 +14,39 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.crud.dto.KeysetPage;
+import com.example.crud.dto.OrderCursor;
+import com.example.crud.dto.OrderSummary;
 import com.example.crud.model.Order;
-import com.example.crud.model.Product;
-import com.example.crud.model.User;
+import com.example.crud.service.AppUserPrincipal;
 import com.example.crud.service.OrderService;
-import com.example.crud.service.ProductService;
-import com.example.crud.service.UserService;
 
 @Controller
 @RequestMapping("/orders")
 public class OrderWebController {
 
+    private static final int PAGE_SIZE = 50;
+
     private final OrderService orderService;
-    private final ProductService productService;
-    private final UserService userService;
 
     @Autowired
-    public OrderWebController(OrderService orderService, ProductService productService, UserService userService) {
+    public OrderWebController(OrderService orderService) {
         this.orderService = orderService;
-        this.productService = productService;
-        this.userService = userService;
     }    @GetMapping
-    public String getAllOrders(Model model, Authentication authentication) {
-        User currentUser = userService.getUserByUsername(authentication.getName())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-        
-        List<Order> orders;
-        if (isAdmin) {
-            orders = orderService.getAllOrders();
+    public String getAllOrders(@RequestParam(required = false) String cursor, Model model, AppUserPrincipal currentUser) {
+        List<OrderSummary> orders;
+        if (currentUser.isAdmin()) {
+            // Admins see every order, so page through them instead of loading the whole table
+            KeysetPage<OrderSummary> page = orderService.getOrdersPage(OrderCursor.decode(cursor), PAGE_SIZE);
+            orders = page.getItems();
             model.addAttribute("isAdmin", true);
+            model.addAttribute("nextCursor", page.getNextCursor());
+            model.addAttribute("firstPage", cursor == null || cursor.isEmpty());
         } else {
-            orders = orderService.getOrdersByUser(currentUser);
+            orders = orderService.getOrderSummariesByUserId(currentUser.getId());
             model.addAttribute("isAdmin", false);
         }
         
@@ -61,72 +57,56 @@ public class OrderWebController {
     @GetMapping("/new")
     public String showNewOrderForm(Model model) {
         model.addAttribute("order", new Order());
-        List<Product> products = productService.getAllProducts();
-        model.addAttribute("products", products);
         return "orders/form";
     }
 
     @PostMapping("/save")
     public String saveOrder(@Valid @ModelAttribute("order") Order order,
                            BindingResult result,
-                           Authentication authentication,
+                           AppUserPrincipal currentUser,
                            Model model,
                            RedirectAttributes redirectAttributes) {
         if (result.hasErrors()) {
-            List<Product> products = productService.getAllProducts();
-            model.addAttribute("products", products);
             return "orders/form";        }
 
-        User currentUser = userService.getUserByUsername(authentication.getName())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        
-        order.setUser(currentUser);
-        
         if (order.getId() == null) {
+            order.setUser(currentUser.toUser());
             orderService.createOrder(order);
             redirectAttributes.addFlashAttribute("successMessage", "Order created successfully!");
         } else {
-            orderService.updateOrder(order);
+            // Only the owner or an admin may edit, and the order keeps its owner
+            if (!orderService.updateOrder(order.getId(), order, currentUser.getUsername(), currentUser.isAdmin())
+                    .isPresent()) {
+                if (!orderService.orderExists(order.getId())) {
+                    throw new EntityNotFoundException("Order not found with id: " + order.getId());
+                }
+                throw new SecurityException("You do not have permission to edit this order");
+            }
             redirectAttributes.addFlashAttribute("successMessage", "Order updated successfully!");
         }
         
         return "redirect:/orders";
     }    @GetMapping("/edit/{id}")
-    public String showEditOrderForm(@PathVariable Long id, Model model, Authentication authentication) {
+    public String showEditOrderForm(@PathVariable Long id, Model model, AppUserPrincipal currentUser) {
         Order order = orderService.getOrderById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + id));
         
-        User currentUser = userService.getUserByUsername(authentication.getName())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-        
-        if (!isAdmin && !order.getUser().getId().equals(currentUser.getId())) {
+        if (!currentUser.isAdmin() && !order.getUser().getId().equals(currentUser.getId())) {
             throw new SecurityException("You do not have permission to edit this order");
         }
         
         model.addAttribute("order", order);
-        List<Product> products = productService.getAllProducts();
-        model.addAttribute("products", products);
         return "orders/form";
     }
 
-    @GetMapping("/delete/{id}")    public String deleteOrder(@PathVariable Long id, Authentication authentication, RedirectAttributes redirectAttributes) {
-        Order order = orderService.getOrderById(id)
-                .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + id));
-        
-        User currentUser = userService.getUserByUsername(authentication.getName())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
-        
-        if (!isAdmin && !order.getUser().getId().equals(currentUser.getId())) {
+    @GetMapping("/delete/{id}")    public String deleteOrder(@PathVariable Long id, AppUserPrincipal currentUser, RedirectAttributes redirectAttributes) {
+        if (!orderService.deleteOrder(id, currentUser.getUsername(), currentUser.isAdmin())) {
+            if (!orderService.orderExists(id)) {
+                throw new EntityNotFoundException("Order not found with id: " + id);
+            }
             throw new SecurityException("You do not have permission to delete this order");
         }
         
-        orderService.deleteOrder(id);
         redirectAttributes.addFlashAttribute("successMessage", "Order deleted successfully!");
         return "redirect:/orders";
     }
@@ -1,14 +1,32 @@
 package com.example.crud.controller;
 
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.BulkPriceUpdate;
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.ImportStatus;
+import com.example.crud.exception.InvalidRequestException;
 import com.example.crud.model.Product;
+import com.example.crud.service.ContentHash;
+import com.example.crud.service.ProductChangeFeed;
+import com.example.crud.service.ProductImportService;
 import com.example.crud.service.ProductService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import javax.persistence.EntityNotFoundException;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,23 +35,48 @@ import java.util.Map;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_SUGGESTIONS = 20;
+    private static final int MAX_BULK_IDS = 10000;
+    private static final int MAX_MULTI_GET_IDS = 500;
+    private static final int MAX_PAGE_SIZE = 500;
+
     private final ProductService productService;
+    private final ProductImportService productImportService;
+    private final ProductChangeFeed productChangeFeed;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductImportService productImportService,
+                             ProductChangeFeed productChangeFeed) {
         this.productService = productService;
+        this.productImportService = productImportService;
+        this.productChangeFeed = productChangeFeed;
     }
 
-    // Get all products
+    // Get all products; answers 304 without a body when the catalog still matches If-None-Match
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<Product> products = productService.getAllProducts();
-        return new ResponseEntity<>(products, HttpStatus.OK);
-    }    // Get a product by ID
+        return ResponseEntity.ok().eTag(etag).body(products);
+    }
+
+    // Stream product changes as server-sent events; Last-Event-ID resumes after the last change received
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return productChangeFeed.subscribe(lastEventId);
+    }
+
+    // Get a product by ID, tagged with a hash of its fields
     @GetMapping("/{id}")
     public ResponseEntity<?> getProductById(@PathVariable Long id) {
         return productService.getProductById(id)
-                .map(product -> new ResponseEntity<Object>(product, HttpStatus.OK))
+                .map(product -> ResponseEntity.ok()
+                        .eTag(ContentHash.toETag(ContentHash.of(product)))
+                        .<Object>body(product))
                 .orElseGet(() -> {
                     Map<String, String> error = new HashMap<>();
                     error.put("message", "Product not found with id: " + id);
@@ -41,6 +84,18 @@ public class ProductController {
                 });
     }
 
+    // Get several products by id, in request order, each marked FOUND or NOT_FOUND
+    @GetMapping("/by-ids")
+    public ResponseEntity<List<BatchGetItem<Product>>> getProductsByIds(@RequestParam List<Long> ids) {
+        return new ResponseEntity<>(productService.getProductsByIds(checkIds(ids, MAX_MULTI_GET_IDS)), HttpStatus.OK);
+    }
+
+    // Same as above, for id lists too long for a query string
+    @PostMapping("/by-ids")
+    public ResponseEntity<List<BatchGetItem<Product>>> getProductsByIdsPost(@RequestBody List<Long> ids) {
+        return getProductsByIds(ids);
+    }
+
     // Create a new product
     @PostMapping
     public ResponseEntity<Product> createProduct(@Valid @RequestBody Product product) {
@@ -76,24 +131,152 @@ public class ProductController {
         }
     }
 
-    // Search products by name
+    // Reprice many products in one statement, selected by ids or by a price range
+    @PostMapping("/bulk/price")
+    public ResponseEntity<Map<String, Integer>> adjustPrices(@RequestBody BulkPriceUpdate update) {
+        double percent = update.getPercent() == null ? 0 : update.getPercent();
+        double amount = update.getAmount() == null ? 0 : update.getAmount();
+        int updated;
+        if (update.getIds() != null) {
+            if (update.getMinPrice() != null || update.getMaxPrice() != null) {
+                throw new InvalidRequestException("Select products either by ids or by price range, not both");
+            }
+            updated = productService.adjustPrices(checkIds(update.getIds(), MAX_BULK_IDS), percent, amount);
+        } else if (update.getMinPrice() != null || update.getMaxPrice() != null) {
+            updated = productService.adjustPricesBetween(
+                    update.getMinPrice() == null ? 0 : update.getMinPrice(),
+                    update.getMaxPrice() == null ? Double.MAX_VALUE : update.getMaxPrice(), percent, amount);
+        } else {
+            throw new InvalidRequestException("Select products by ids or by minPrice/maxPrice");
+        }
+        return new ResponseEntity<>(Collections.singletonMap("updated", updated), HttpStatus.OK);
+    }
+
+    // Delete many products in one statement; products that have orders are kept
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<Map<String, Integer>> deleteProducts(@RequestBody List<Long> ids) {
+        int deleted = productService.deleteProducts(checkIds(ids, MAX_BULK_IDS));
+        return new ResponseEntity<>(Collections.singletonMap("deleted", deleted), HttpStatus.OK);
+    }
+
+    // Search products by name or description, best matches first
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name) {
-        List<Product> products = productService.findProductsByName(name);
+    public ResponseEntity<List<Product>> searchProducts(@RequestParam String name,
+                                                        @RequestParam(defaultValue = "20") int limit,
+                                                        WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<Product> products = productService.searchProducts(name, Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS)));
+        return ResponseEntity.ok().eTag(etag).body(products);
+    }
+
+    // Autocomplete product names as they are typed, most ordered products first
+    @GetMapping("/suggest")
+    public ResponseEntity<List<Product>> suggestProducts(@RequestParam(defaultValue = "") String prefix,
+                                                         @RequestParam(defaultValue = "10") int limit) {
+        List<Product> products = productService.suggestProducts(prefix, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
         return new ResponseEntity<>(products, HttpStatus.OK);
     }
 
     // Filter products by price less than
     @GetMapping("/filter/price-less-than")
-    public ResponseEntity<List<Product>> getProductsByPriceLessThan(@RequestParam Double price) {
+    public ResponseEntity<List<Product>> getProductsByPriceLessThan(@RequestParam Double price, WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<Product> products = productService.findProductsByPriceLessThan(price);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).body(products);
     }
 
     // Filter products by price greater than
     @GetMapping("/filter/price-greater-than")
-    public ResponseEntity<List<Product>> getProductsByPriceGreaterThan(@RequestParam Double price) {
+    public ResponseEntity<List<Product>> getProductsByPriceGreaterThan(@RequestParam Double price, WebRequest request) {
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
         List<Product> products = productService.findProductsByPriceGreaterThan(price);
-        return new ResponseEntity<>(products, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(etag).body(products);
+    }
+
+    // Filter products by price range, one page at a time; order=desc lists the most expensive first
+    @GetMapping("/filter/price-between")
+    public ResponseEntity<List<Product>> getProductsByPriceBetween(@RequestParam(required = false) Double min,
+                                                                   @RequestParam(required = false) Double max,
+                                                                   @RequestParam(defaultValue = "asc") String order,
+                                                                   @RequestParam(defaultValue = "0") int offset,
+                                                                   @RequestParam(defaultValue = "50") int limit,
+                                                                   WebRequest request) {
+        if (!"asc".equalsIgnoreCase(order) && !"desc".equalsIgnoreCase(order)) {
+            throw new InvalidRequestException("'order' must be asc or desc");
+        }
+        String etag = catalogETag();
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        List<Product> products = productService.findProductsByPriceBetween(min, max, "desc".equalsIgnoreCase(order),
+                Math.max(0, offset), Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .header("X-Total-Count", String.valueOf(productService.countProductsByPriceBetween(min, max)))
+                .body(products);
+    }
+
+    // Import products from a CSV or NDJSON request body; answers 202 with the job to poll for progress
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ImportStatus> importProducts(InputStream body,
+                                                       @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType)
+            throws IOException {
+        DataFormat format = DataFormat.of(
+                "csv".equals(contentType.getSubtype()) ? "csv" : "ndjson");
+        return importAccepted(productImportService.submit(format, body));
+    }
+
+    // Import products from an uploaded file; the format comes from the format parameter or the file extension
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportStatus> importProductsFile(@RequestParam("file") MultipartFile file,
+                                                           @RequestParam(required = false) String format)
+            throws IOException {
+        DataFormat parsed = DataFormat.of(
+                format != null ? format : StringUtils.getFilenameExtension(file.getOriginalFilename()));
+        try (InputStream body = file.getInputStream()) {
+            return importAccepted(productImportService.submit(parsed, body));
+        }
+    }
+
+    // Get the progress and rejected rows of a product import
+    @GetMapping("/import/{jobId}")
+    public ResponseEntity<?> getImportStatus(@PathVariable String jobId) {
+        return productImportService.getStatus(jobId)
+                .map(status -> new ResponseEntity<Object>(status, HttpStatus.OK))
+                .orElseGet(() -> {
+                    Map<String, String> error = new HashMap<>();
+                    error.put("message", "Unknown import job: " + jobId);
+                    return new ResponseEntity<Object>(error, HttpStatus.NOT_FOUND);
+                });
+    }
+
+    private static ResponseEntity<ImportStatus> importAccepted(ImportStatus status) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/products/import/" + status.getJobId()))
+                .body(status);
+    }
+
+    // Every catalog read answers from the same snapshot, so one tag covers them all for a given URL
+    private String catalogETag() {
+        return ContentHash.toETag(productService.getCatalogHash());
+    }
+
+    private static List<Long> checkIds(List<Long> ids, int max) {
+        if (ids.size() > max) {
+            throw new InvalidRequestException("At most " + max + " ids per request");
+        }
+        if (ids.contains(null)) {
+            throw new InvalidRequestException("ids must not contain null");
+        }
+        return ids;
     }
 }
@@ -0,0 +1,75 @@
+package com.example.crud.controller;
+
+import com.example.crud.exception.InvalidRequestException;
+import com.example.crud.model.DailySales;
+import com.example.crud.model.ProductSales;
+import com.example.crud.model.UserSales;
+import com.example.crud.service.SalesRollupService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Sales reports, read from the rollup tables (admin only)
+@RestController
+@RequestMapping("/api/reports")
+public class ReportController {
+
+    private static final int MAX_TOP = 100;
+    private static final int DEFAULT_DAYS = 30;
+
+    private final SalesRollupService salesRollupService;
+
+    @Autowired
+    public ReportController(SalesRollupService salesRollupService) {
+        this.salesRollupService = salesRollupService;
+    }
+
+    // Sales per day, the last 30 days by default
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySales>> getDailySales(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new InvalidRequestException("'from' must not be after 'to'");
+        }
+        return new ResponseEntity<>(salesRollupService.getDailySales(start, end), HttpStatus.OK);
+    }
+
+    // Best selling products by revenue
+    @GetMapping("/products")
+    public ResponseEntity<List<ProductSales>> getTopProducts(@RequestParam(defaultValue = "10") int limit) {
+        return new ResponseEntity<>(salesRollupService.getTopProducts(clamp(limit)), HttpStatus.OK);
+    }
+
+    // Biggest customers by revenue
+    @GetMapping("/users")
+    public ResponseEntity<List<UserSales>> getTopUsers(@RequestParam(defaultValue = "10") int limit) {
+        return new ResponseEntity<>(salesRollupService.getTopUsers(clamp(limit)), HttpStatus.OK);
+    }
+
+    // Recompute the rollups from the orders table
+    @PostMapping("/rebuild")
+    public ResponseEntity<Map<String, String>> rebuild() {
+        salesRollupService.rebuild();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Sales rollups rebuilt");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_TOP));
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.crud.controller;
 
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.KeysetPage;
 import com.example.crud.model.User;
+import com.example.crud.service.UserProvisioningService;
 import com.example.crud.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -18,17 +24,24 @@ import java.util.Set;
 @RequestMapping("/users")
 public class UserController {
 
+    private static final int PAGE_SIZE = 50;
+
     private final UserService userService;
+    private final UserProvisioningService userProvisioningService;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserProvisioningService userProvisioningService) {
         this.userService = userService;
+        this.userProvisioningService = userProvisioningService;
     }
 
+    // One page of users in username order; the cursor is the last username of the previous page
     @GetMapping
-    public String getAllUsers(Model model) {
-        List<User> users = userService.getAllUsers();
-        model.addAttribute("users", users);
+    public String getAllUsers(@RequestParam(required = false) String cursor, Model model) {
+        KeysetPage<User> page = userService.getUsersPage(cursor, PAGE_SIZE);
+        model.addAttribute("users", page.getItems());
+        model.addAttribute("nextCursor", page.getNextCursor());
+        model.addAttribute("firstPage", cursor == null || cursor.isEmpty());
         return "users/list";
     }
 
@@ -80,6 +93,13 @@ public class UserController {
         return "redirect:/users";
     }
 
+    // Create many users from a JSON array; passwords are hashed in parallel and users inserted in chunked transactions
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ResponseBody
+    public ResponseEntity<List<BatchItemResult>> createUsers(@RequestBody List<User> users) {
+        return new ResponseEntity<>(userProvisioningService.createUsers(users), HttpStatus.OK);
+    }
+
     @GetMapping("/edit/{id}")
     public String showUpdateForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
         try {
@@ -16,6 +16,8 @@ import java.util.List;
 @Controller
 public class WebController {
 
+    private static final int SEARCH_RESULTS = 50;
+
     private final ProductService productService;
 
     @Autowired
@@ -92,7 +94,7 @@ public class WebController {
 
     @GetMapping("/products/search")
     public String searchProducts(@RequestParam String name, Model model) {
-        List<Product> products = productService.findProductsByName(name);
+        List<Product> products = productService.searchProducts(name, SEARCH_RESULTS);
         model.addAttribute("products", products);
         model.addAttribute("searchTerm", name);
         return "products/list";
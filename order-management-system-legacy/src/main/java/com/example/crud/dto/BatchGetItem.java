@@ -0,0 +1,49 @@
+package com.example.crud.dto;
+
+/**
+ * Outcome of one id requested through a multi-get endpoint.
+ * Items come back in the order their ids were requested; the item is only set when it was found.
+ */
+public class BatchGetItem<T> {
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND,
+        FORBIDDEN
+    }
+
+    private final Long id;
+    private final Status status;
+    private final T item;
+
+    private BatchGetItem(Long id, Status status, T item) {
+        this.id = id;
+        this.status = status;
+        this.item = item;
+    }
+
+    public static <T> BatchGetItem<T> found(Long id, T item) {
+        return new BatchGetItem<>(id, Status.FOUND, item);
+    }
+
+    public static <T> BatchGetItem<T> notFound(Long id) {
+        return new BatchGetItem<>(id, Status.NOT_FOUND, null);
+    }
+
+    public static <T> BatchGetItem<T> forbidden(Long id) {
+        return new BatchGetItem<>(id, Status.FORBIDDEN, null);
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public T getItem() {
+        return item;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.crud.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a single item submitted through one of the bulk endpoints.
+ * The index is the zero-based position of the item in the submitted payload.
+ */
+public class BatchItemResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        INVALID,
+        DUPLICATE,
+        FAILED
+    }
+
+    private final int index;
+    private final Status status;
+    private final Long id;
+    private final List<String> errors;
+
+    private BatchItemResult(int index, Status status, Long id, List<String> errors) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.errors = errors;
+    }
+
+    public static BatchItemResult created(int index, Long id) {
+        return new BatchItemResult(index, Status.CREATED, id, Collections.emptyList());
+    }
+
+    public static BatchItemResult updated(int index, Long id) {
+        return new BatchItemResult(index, Status.UPDATED, id, Collections.emptyList());
+    }
+
+    public static BatchItemResult invalid(int index, List<String> errors) {
+        return new BatchItemResult(index, Status.INVALID, null, errors);
+    }
+
+    public static BatchItemResult duplicate(int index, String error) {
+        return new BatchItemResult(index, Status.DUPLICATE, null, Collections.singletonList(error));
+    }
+
+    public static BatchItemResult failed(int index, String error) {
+        return new BatchItemResult(index, Status.FAILED, null, Collections.singletonList(error));
+    }
+
+    // Getters
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+}
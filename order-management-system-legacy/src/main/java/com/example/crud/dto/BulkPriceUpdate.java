@@ -0,0 +1,58 @@
+package com.example.crud.dto;
+
+import java.util.List;
+
+/**
+ * Body of a bulk repricing request.
+ * Products are selected either by ids or by an inclusive price range (an unset bound is open); the price is
+ * then changed by percent, followed by amount, and rounded to cents.
+ */
+public class BulkPriceUpdate {
+
+    private List<Long> ids;
+    private Double minPrice;
+    private Double maxPrice;
+    private Double percent;
+    private Double amount;
+
+    // Getters and Setters
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Double getPercent() {
+        return percent;
+    }
+
+    public void setPercent(Double percent) {
+        this.percent = percent;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.crud.dto;
+
+import com.example.crud.exception.InvalidRequestException;
+
+/**
+ * File formats of bulk data transfers: order exports and product imports.
+ */
+public enum DataFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    DataFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public static DataFormat of(String name) {
+        for (DataFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(name)) {
+                return format;
+            }
+        }
+        throw new InvalidRequestException("Unsupported format: " + name);
+    }
+}
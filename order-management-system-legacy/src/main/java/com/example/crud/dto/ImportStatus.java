@@ -0,0 +1,150 @@
+package com.example.crud.dto;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Progress of a bulk product import, looked up by its job id.
+ * <p>
+ * Counters are written by the single thread running the import and read by status requests. Only the first
+ * {@code maxErrors} rejected rows are kept, so a file full of bad rows cannot exhaust the heap.
+ */
+public class ImportStatus {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String jobId;
+    private final String format;
+    private final int maxErrors;
+
+    private volatile State state = State.QUEUED;
+    private volatile String message;
+    private volatile long rowsRead;
+    private volatile long created;
+    private volatile long updated;
+    private volatile long duplicates;
+    private volatile long invalid;
+    private volatile long failed;
+    private volatile boolean errorsTruncated;
+    private volatile Date startedAt;
+    private volatile Date finishedAt;
+    private final List<BatchItemResult> errors = new ArrayList<>();
+
+    public ImportStatus(String jobId, String format, int maxErrors) {
+        this.jobId = jobId;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public void start() {
+        startedAt = new Date();
+        state = State.RUNNING;
+    }
+
+    public void complete() {
+        finishedAt = new Date();
+        state = State.COMPLETED;
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        finishedAt = new Date();
+        state = State.FAILED;
+    }
+
+    public void read(int rows) {
+        rowsRead += rows;
+    }
+
+    public void duplicate() {
+        duplicates++;
+    }
+
+    public void record(BatchItemResult result) {
+        switch (result.getStatus()) {
+            case CREATED:
+                created++;
+                return;
+            case UPDATED:
+                updated++;
+                return;
+            case INVALID:
+                invalid++;
+                break;
+            default:
+                failed++;
+        }
+        synchronized (errors) {
+            if (errors.size() < maxErrors) {
+                errors.add(result);
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+
+    // Getters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public List<BatchItemResult> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public boolean isErrorsTruncated() {
+        return errorsTruncated;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.crud.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Progress of an order accepted by the asynchronous intake, looked up by its tracking id.
+ */
+public class IntakeStatus {
+
+    public enum Status {
+        PENDING,
+        CREATED,
+        INVALID,
+        FAILED
+    }
+
+    private final String trackingId;
+    private final Status status;
+    private final Long orderId;
+    private final List<String> errors;
+    private final String username;
+
+    private IntakeStatus(String trackingId, Status status, Long orderId, List<String> errors, String username) {
+        this.trackingId = trackingId;
+        this.status = status;
+        this.orderId = orderId;
+        this.errors = errors;
+        this.username = username;
+    }
+
+    public static IntakeStatus pending(String trackingId, String username) {
+        return new IntakeStatus(trackingId, Status.PENDING, null, Collections.emptyList(), username);
+    }
+
+    public static IntakeStatus created(String trackingId, Long orderId, String username) {
+        return new IntakeStatus(trackingId, Status.CREATED, orderId, Collections.emptyList(), username);
+    }
+
+    public static IntakeStatus invalid(String trackingId, List<String> errors, String username) {
+        return new IntakeStatus(trackingId, Status.INVALID, null, errors, username);
+    }
+
+    public static IntakeStatus failed(String trackingId, List<String> errors, String username) {
+        return new IntakeStatus(trackingId, Status.FAILED, null, errors, username);
+    }
+
+    // Getters
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // Owner of the order, used for access checks only
+    @JsonIgnore
+    public String getUsername() {
+        return username;
+    }
+}
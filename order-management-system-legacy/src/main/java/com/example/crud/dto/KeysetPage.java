@@ -0,0 +1,27 @@
+package com.example.crud.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing.
+ * The next page is requested by passing {@code nextCursor} back as the {@code cursor} parameter;
+ * it is null on the last page.
+ */
+public class KeysetPage<T> {
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public KeysetPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.crud.dto;
+
+import com.example.crud.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Keyset position in the order listing, which is sorted by (createdAt DESC, id DESC).
+ * Encoded as an opaque URL-safe string so clients just echo back the value they received.
+ */
+public class OrderCursor {
+
+    private final Date createdAt;
+    private final Long id;
+
+    public OrderCursor(Date createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static OrderCursor of(OrderSummary order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    /**
+     * Parse a cursor previously produced by {@link #encode()}
+     * @param value The encoded cursor, may be null or empty for the first page
+     * @return The decoded cursor or null when no cursor was given
+     * @throws InvalidRequestException If the value is not a valid cursor
+     */
+    public static OrderCursor decode(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.US_ASCII);
+            int separator = decoded.indexOf(':');
+            return new OrderCursor(new Date(Long.parseLong(decoded.substring(0, separator))),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidRequestException("Invalid cursor: " + value);
+        }
+    }
+
+    public String encode() {
+        String raw = createdAt.getTime() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
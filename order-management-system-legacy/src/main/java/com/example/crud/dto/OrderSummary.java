@@ -0,0 +1,91 @@
+package com.example.crud.dto;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * Read model for order listings.
+ * Built directly by a JPQL constructor expression that joins the product and the user, so a page of
+ * summaries costs a single SQL statement and never touches lazy associations.
+ */
+public class OrderSummary {
+
+    private final Long id;
+    private final LocalDate orderDate;
+    private final Integer quantity;
+    private final Double unitPrice;
+    private final String comments;
+    private final Date createdAt;
+    private final Date updatedAt;
+    private final Long productId;
+    private final String productName;
+    private final Double productPrice;
+    private final Long userId;
+    private final String username;
+
+    public OrderSummary(Long id, LocalDate orderDate, Integer quantity, Double unitPrice, String comments,
+                        Date createdAt, Date updatedAt, Long productId, String productName, Double productPrice,
+                        Long userId, String username) {
+        this.id = id;
+        this.orderDate = orderDate;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.comments = comments;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.productId = productId;
+        this.productName = productName;
+        this.productPrice = productPrice;
+        this.userId = userId;
+        this.username = username;
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public LocalDate getOrderDate() {
+        return orderDate;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public Double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public String getComments() {
+        return comments;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public Date getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getProductName() {
+        return productName;
+    }
+
+    public Double getProductPrice() {
+        return productPrice;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.crud.dto;
+
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.model.Product;
+
+/**
+ * One entry of the product change feed.
+ * Versions increase with every committed change. The product is its state after the change; it is null for
+ * deletes, for bulk changes (which carry no product id either) and for the reset sent to new subscribers,
+ * which has no type.
+ */
+public class ProductChange {
+
+    private final long version;
+    private final ProductChangeEvent.Type type;
+    private final Long productId;
+    private final Product product;
+
+    public ProductChange(long version, ProductChangeEvent.Type type, Long productId, Product product) {
+        this.version = version;
+        this.type = type;
+        this.productId = productId;
+        this.product = product;
+    }
+
+    // Getters
+    public long getVersion() {
+        return version;
+    }
+
+    public ProductChangeEvent.Type getType() {
+        return type;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.crud.dto;
+
+import javax.validation.constraints.NotBlank;
+
+/**
+ * Credentials exchanged for an access token at POST /api/auth/token.
+ */
+public class TokenRequest {
+
+    @NotBlank(message = "Username is required")
+    private String username;
+
+    @NotBlank(message = "Password is required")
+    private String password;
+
+    // Getters and Setters
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
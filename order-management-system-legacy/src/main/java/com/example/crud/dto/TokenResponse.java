@@ -0,0 +1,75 @@
+package com.example.crud.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Access token issued by POST /api/auth/token, shaped like JWTAuthResponse of the modernized API contract.
+ */
+public class TokenResponse {
+
+    private final String token;
+    private final String tokenType;
+    private final long expiresIn;
+    private final Instant issuedAt;
+    private final UserInfo user;
+
+    public TokenResponse(String token, String tokenType, long expiresIn, Instant issuedAt, UserInfo user) {
+        this.token = token;
+        this.tokenType = tokenType;
+        this.expiresIn = expiresIn;
+        this.issuedAt = issuedAt;
+        this.user = user;
+    }
+
+    // Getters
+    public String getToken() {
+        return token;
+    }
+
+    public String getTokenType() {
+        return tokenType;
+    }
+
+    // Lifetime in seconds
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public UserInfo getUser() {
+        return user;
+    }
+
+    /**
+     * The user a token was issued to.
+     */
+    public static class UserInfo {
+
+        private final Long id;
+        private final String username;
+        private final List<String> roles;
+
+        public UserInfo(Long id, String username, List<String> roles) {
+            this.id = id;
+            this.username = username;
+            this.roles = roles;
+        }
+
+        // Getters
+        public Long getId() {
+            return id;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public List<String> getRoles() {
+            return roles;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.crud.event;
+
+/**
+ * Published when products are created, updated or deleted.
+ * Listeners that keep derived product data should refresh once the publishing transaction has committed.
+ * Bulk changes publish a single IMPORTED, BULK_UPDATED or BULK_DELETED event without a product id.
+ */
+public class ProductChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        IMPORTED,
+        BULK_UPDATED,
+        BULK_DELETED
+    }
+
+    private final Long productId;
+    private final Type type;
+
+    public ProductChangeEvent(Long productId, Type type) {
+        this.productId = productId;
+        this.type = type;
+    }
+
+    // Getters
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.crud.exception;
+
+/**
+ * A request that cannot be served as sent, such as a malformed cursor or an inverted range; answered with 400.
+ * <p>
+ * Any other IllegalArgumentException is a bug and stays a 500.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.crud.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_sales")
+public class DailySales extends SalesTotals {
+
+    @Id
+    @Column(name = "sales_date")
+    private LocalDate salesDate;
+
+    public LocalDate getSalesDate() {
+        return salesDate;
+    }
+}
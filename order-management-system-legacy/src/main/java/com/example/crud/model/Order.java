@@ -1,5 +1,8 @@
 package com.example.crud.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 import javax.validation.constraints.Digits;
 import javax.validation.constraints.NotNull;
@@ -8,11 +11,17 @@ import java.time.LocalDate;
 import java.util.Date;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+        @Index(name = "idx_orders_user_created_at", columnList = "user_id, created_at, id"),
+        @Index(name = "idx_orders_product_order_date", columnList = "product_id, order_date"),
+        @Index(name = "idx_orders_order_date", columnList = "order_date")
+})
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = SnowflakeIdGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdGenerator.NAME, strategy = SnowflakeIdGenerator.STRATEGY)
     private Long id;    @NotNull(message = "Order date is required")
     @Column(name = "order_date", nullable = false)
     private LocalDate orderDate;
@@ -29,14 +38,24 @@ public class Order {
     @Column(nullable = false)
     private Integer quantity;
 
+    // Product price when the order was placed
+    @Column(name = "unit_price")
+    private Double unitPrice;
+
     @Column(name = "comments", length = 500)
     private String comments;
 
-    @Column(name = "created_at")
+    // Part of the (created_at, id) pagination key, so never written after the insert
+    @Column(name = "created_at", nullable = false, updatable = false)
     private Date createdAt;
 
     @Column(name = "updated_at")
-    private Date updatedAt;    @PrePersist
+    private Date updatedAt;
+
+    // Set by the asynchronous intake so a replayed journal never inserts the same order twice
+    @JsonIgnore
+    @Column(name = "tracking_id", length = 36, unique = true, updatable = false)
+    private String trackingId;    @PrePersist
     protected void onCreate() {
         createdAt = new Date();
         updatedAt = new Date();
@@ -100,6 +119,14 @@ public class Order {
         this.quantity = quantity;
     }
 
+    public Double getUnitPrice() {
+        return unitPrice;
+    }
+
+    public void setUnitPrice(Double unitPrice) {
+        this.unitPrice = unitPrice;
+    }
+
     public String getComments() {
         return comments;
     }
@@ -123,4 +150,12 @@ public class Order {
     public void setUpdatedAt(Date updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public String getTrackingId() {
+        return trackingId;
+    }
+
+    public void setTrackingId(String trackingId) {
+        this.trackingId = trackingId;
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.crud.model;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Entity
+@Table(name = "product_sales")
+public class ProductSales extends SalesTotals {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    public Long getProductId() {
+        return productId;
+    }
+}
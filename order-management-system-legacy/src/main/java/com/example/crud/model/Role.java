@@ -0,0 +1,80 @@
+package com.example.crud.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Roles a user can hold, stored together as a bitmask in users.role_mask.
+ * Each role owns a fixed bit: new roles take the next free bit, and a bit is never reused or renumbered,
+ * since that would change the roles of existing users.
+ */
+public enum Role {
+
+    USER(1),
+    ADMIN(1 << 1),
+    API_USER(1 << 2);
+
+    private static final Role[] ROLES = values();
+    // Role names of every possible mask, built once; the sets are immutable and shared
+    private static final Set<String>[] NAMES = names();
+
+    private final int bit;
+
+    Role(int bit) {
+        this.bit = bit;
+    }
+
+    public int getBit() {
+        return bit;
+    }
+
+    /**
+     * Pack role names into a mask
+     * @param names Role names as used in authorities, without the ROLE_ prefix; may be null
+     * @return The mask with the bit of every role set
+     * @throws IllegalArgumentException If a name is not a known role
+     */
+    public static int toMask(Collection<String> names) {
+        int mask = 0;
+        if (names != null) {
+            for (String name : names) {
+                try {
+                    mask |= valueOf(name).bit;
+                } catch (IllegalArgumentException | NullPointerException e) {
+                    throw new IllegalArgumentException("Unknown role: " + name);
+                }
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Unpack a mask into role names
+     * @param mask A mask built by {@link #toMask(Collection)}; bits of no known role are ignored
+     * @return The role names, in declaration order, as an immutable set
+     */
+    public static Set<String> toNames(int mask) {
+        return NAMES[mask & (NAMES.length - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String>[] names() {
+        int all = 0;
+        for (Role role : ROLES) {
+            all |= role.bit;
+        }
+        Set<String>[] names = new Set[Integer.highestOneBit(all) << 1];
+        for (int mask = 0; mask < names.length; mask++) {
+            Set<String> set = new LinkedHashSet<>();
+            for (Role role : ROLES) {
+                if ((mask & role.bit) != 0) {
+                    set.add(role.name());
+                }
+            }
+            names[mask] = Collections.unmodifiableSet(set);
+        }
+        return names;
+    }
+}
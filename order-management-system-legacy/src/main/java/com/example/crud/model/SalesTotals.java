@@ -0,0 +1,36 @@
+package com.example.crud.model;
+
+import javax.persistence.Column;
+import javax.persistence.MappedSuperclass;
+import java.math.BigDecimal;
+
+/**
+ * Running totals shared by the sales rollup tables.
+ * Rows are only changed through the additive upserts of the rollup repositories. Revenue is a DECIMAL so the
+ * additions are exact: a DOUBLE would gather rounding error with every delta and never return to zero.
+ */
+@MappedSuperclass
+public abstract class SalesTotals {
+
+    @Column(name = "order_count", nullable = false)
+    private long orderCount;
+
+    @Column(nullable = false)
+    private long units;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal revenue;
+
+    // Getters
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getUnits() {
+        return units;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.crud.model;
+
+import org.hibernate.HibernateException;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered identifier generator (Snowflake layout).
+ * <p>
+ * An id is made of 41 bits of milliseconds since {@link #EPOCH}, 5 bits of node id and 7 bits of
+ * per-millisecond sequence, so ids are unique across nodes and increase with insertion time. Because the
+ * id is known before the INSERT runs, Hibernate keeps JDBC insert batching enabled, which it cannot do
+ * with {@code GenerationType.IDENTITY}.
+ * <p>
+ * The 53 bits keep every id below 2^53 until 2094, so ids stay exact as JSON numbers in JavaScript clients.
+ * <p>
+ * The node id is read from the {@code node-id} generator parameter or, when absent, from the
+ * {@value #NODE_ID_SETTING} Hibernate setting (see application.properties). Every node writing to the
+ * same database must use a distinct node id, so there is no default: startup fails when it is not set.
+ */
+public class SnowflakeIdGenerator implements IdentifierGenerator {
+
+    public static final String NAME = "snowflake";
+    public static final String STRATEGY = "com.example.crud.model.SnowflakeIdGenerator";
+    public static final String NODE_ID_SETTING = "hibernate.id.snowflake.node-id";
+
+    // 2025-01-01T00:00:00Z
+    static final long EPOCH = 1735689600000L;
+    static final int NODE_BITS = 5;
+    static final int SEQUENCE_BITS = 7;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // One sequencer per node id, shared by every entity so ids are unique across tables too
+    private static final ConcurrentMap<Long, Sequencer> SEQUENCERS = new ConcurrentHashMap<>();
+
+    private Sequencer sequencer;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        Object nodeId = params.getProperty("node-id");
+        if (nodeId == null) {
+            nodeId = serviceRegistry.getService(ConfigurationService.class).getSettings().get(NODE_ID_SETTING);
+        }
+        if (nodeId == null || nodeId.toString().trim().isEmpty()) {
+            throw new MappingException(NODE_ID_SETTING + " is not set; give every instance its own node id"
+                    + " through SNOWFLAKE_NODE_ID");
+        }
+        long node;
+        try {
+            node = Long.parseLong(nodeId.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new MappingException("Invalid " + NODE_ID_SETTING + ": " + nodeId, e);
+        }
+        if (node < 0 || node > MAX_NODE_ID) {
+            throw new MappingException(NODE_ID_SETTING + " must be between 0 and " + MAX_NODE_ID + ", was " + node);
+        }
+        this.sequencer = SEQUENCERS.computeIfAbsent(node, n -> new Sequencer(n, System::currentTimeMillis));
+    }
+
+    @Override
+    public Serializable generate(SharedSessionContractImplementor session, Object object) throws HibernateException {
+        return sequencer.nextId();
+    }
+
+    /**
+     * Thread-safe id source for one node.
+     * If the wall clock goes backwards, or more than 128 ids are requested within one millisecond,
+     * the sequencer keeps counting on its own logical clock instead of blocking, so ids stay strictly increasing.
+     */
+    static final class Sequencer {
+
+        private final long nodeBits;
+        private final LongSupplier clock;
+        private long lastTimestamp = -1L;
+        private long sequence;
+
+        Sequencer(long nodeId, LongSupplier clock) {
+            this.nodeBits = nodeId << SEQUENCE_BITS;
+            this.clock = clock;
+        }
+
+        synchronized long nextId() {
+            long timestamp = Math.max(clock.getAsLong() - EPOCH, lastTimestamp);
+            if (timestamp == lastTimestamp) {
+                sequence = (sequence + 1) & SEQUENCE_MASK;
+                if (sequence == 0) {
+                    // Sequence exhausted for this millisecond, borrow the next one
+                    timestamp++;
+                }
+            } else {
+                sequence = 0;
+            }
+            lastTimestamp = timestamp;
+            return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | sequence;
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package com.example.crud.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "users")
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = SnowflakeIdGenerator.NAME)
+    @GenericGenerator(name = SnowflakeIdGenerator.NAME, strategy = SnowflakeIdGenerator.STRATEGY)
     private Long id;
 
     @NotBlank
@@ -21,12 +31,14 @@ public class User {
 
     @NotBlank
     @Size(min = 6, max = 100)
+    // Accepted when creating users, never rendered: orders embed their user
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(name = "user_roles", joinColumns = @JoinColumn(name = "user_id"))
-    @Column(name = "role")
-    private Set<String> roles = new HashSet<>();
+    // One bit per Role, so roles load with the row instead of from a collection table
+    @Column(name = "role_mask", nullable = false)
+    @ColumnDefault("0")
+    private int roleMask;
 
     @Column(nullable = false)
     private boolean enabled = true;
@@ -38,7 +50,6 @@ public class User {
     public User(String username, String password) {
         this.username = username;
         this.password = password;
-        this.roles = new HashSet<>();
     }
 
     // Getters and Setters
@@ -66,16 +77,17 @@ public class User {
         this.password = password;
     }
 
+    // Immutable; change roles through setRoles or addRole
     public Set<String> getRoles() {
-        return roles;
+        return Role.toNames(roleMask);
     }
 
     public void setRoles(Set<String> roles) {
-        this.roles = roles;
+        this.roleMask = Role.toMask(roles);
     }
 
     public void addRole(String role) {
-        this.roles.add(role);
+        this.roleMask |= Role.toMask(Collections.singleton(role));
     }
 
     public boolean isEnabled() {
@@ -91,7 +103,7 @@ public class User {
         return "User{" +
                 "id=" + id +
                 ", username='" + username + '\'' +
-                ", roles=" + roles +
+                ", roles=" + getRoles() +
                 ", enabled=" + enabled +
                 '}';
     }
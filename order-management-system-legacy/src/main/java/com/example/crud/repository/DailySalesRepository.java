@@ -0,0 +1,37 @@
+package com.example.crud.repository;
+
+import com.example.crud.model.DailySales;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+
+    // Add a (possibly negative) delta to a day, creating its row on first use
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "daily_sales"))
+    @Query(value = "INSERT INTO daily_sales (sales_date, order_count, units, revenue) VALUES (:day, :orders, :units, :revenue) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + :orders, units = units + :units, revenue = revenue + :revenue",
+           nativeQuery = true)
+    void addDelta(@Param("day") LocalDate day, @Param("orders") long orders,
+                  @Param("units") long units, @Param("revenue") BigDecimal revenue);
+
+    // Recompute every row from the orders table (the table must be empty)
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "daily_sales"))
+    @Query(value = "INSERT INTO daily_sales (sales_date, order_count, units, revenue) " +
+                   "SELECT order_date, COUNT(*), SUM(quantity), SUM(quantity * CAST(COALESCE(unit_price, 0) AS DECIMAL(19, 2))) FROM orders GROUP BY order_date",
+           nativeQuery = true)
+    int rebuild();
+
+    List<DailySales> findBySalesDateBetweenOrderBySalesDate(LocalDate from, LocalDate to);
+}
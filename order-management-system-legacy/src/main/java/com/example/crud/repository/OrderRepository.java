@@ -1,14 +1,78 @@
 package com.example.crud.repository;
 
+import com.example.crud.dto.OrderSummary;
 import com.example.crud.model.Order;
+import com.example.crud.model.Product;
 import com.example.crud.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderSearchRepository {
+
+    // Constructor expression shared by the summary queries below
+    String SUMMARY_SELECT = "SELECT new com.example.crud.dto.OrderSummary(o.id, o.orderDate, o.quantity, o.unitPrice, o.comments, " +
+            "o.createdAt, o.updatedAt, p.id, p.name, p.price, u.id, u.username) " +
+            "FROM Order o JOIN o.product p JOIN o.user u ";
+
     List<Order> findByUser(User user);
     List<Order> findByUserOrderByCreatedAtDesc(User user);
+
+    @Query(SUMMARY_SELECT + "WHERE o.id = :id")
+    Optional<OrderSummary> findSummaryById(@Param("id") Long id);
+
+    // Summaries of several orders in one IN query, in no particular order; ownership is checked by the caller
+    @Query(SUMMARY_SELECT + "WHERE o.id IN :ids")
+    List<OrderSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Order with its user and product in one select
+    @Query("SELECT o FROM Order o JOIN FETCH o.user JOIN FETCH o.product WHERE o.id = :id")
+    Optional<Order> findWithDetailsById(@Param("id") Long id);
+
+    // Order with its user and product, only if the order belongs to the given user
+    @Query("SELECT o FROM Order o JOIN FETCH o.user u JOIN FETCH o.product WHERE o.id = :id AND u.username = :username")
+    Optional<Order> findWithDetailsByIdAndUsername(@Param("id") Long id, @Param("username") String username);
+
+    // Order summary, only if the order belongs to the given user
+    @Query(SUMMARY_SELECT + "WHERE o.id = :id AND u.username = :username")
+    Optional<OrderSummary> findSummaryByIdAndUsername(@Param("id") Long id, @Param("username") String username);
+
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id = :id AND o.user.id = :userId")
+    int deleteByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+
+    // Orders placed before unit prices were recorded take the current product price
+    @Modifying
+    @Query("UPDATE Order o SET o.unitPrice = (SELECT p.price FROM Product p WHERE p.id = o.product.id) " +
+           "WHERE o.unitPrice IS NULL")
+    int backfillUnitPrices();
+
+    @Query(SUMMARY_SELECT + "WHERE o.trackingId = :trackingId")
+    Optional<OrderSummary> findSummaryByTrackingId(@Param("trackingId") String trackingId);
+
+    @Query("SELECT o.trackingId FROM Order o WHERE o.trackingId IN :trackingIds")
+    List<String> findExistingTrackingIds(@Param("trackingIds") Collection<String> trackingIds);
+
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findSummariesByUserId(@Param("userId") Long userId);
+
+    // First keyset page, newest orders first (only the page size is used from the Pageable)
+    @Query(SUMMARY_SELECT + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findFirstPage(Pageable pageable);
+
+    // Keyset page strictly after the given (createdAt, id) position
+    @Query(SUMMARY_SELECT +
+           "WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+           "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummary> findPageAfter(@Param("createdAt") Date createdAt, @Param("id") Long id, Pageable pageable);
 }
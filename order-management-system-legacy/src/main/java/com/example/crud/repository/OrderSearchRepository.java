@@ -0,0 +1,30 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.model.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * Criteria queries over orders that project straight into {@link OrderSummary}, which
+ * {@code JpaSpecificationExecutor} cannot do since it only returns entities.
+ */
+public interface OrderSearchRepository {
+
+    /**
+     * @param spec Filters, may be null
+     * @param limit Maximum number of rows
+     * @return Matching orders, newest first
+     */
+    List<OrderSummary> findSummaries(Specification<Order> spec, int limit);
+
+    /**
+     * Narrow form of {@link #findSummaries}, for telling whether a page changed without loading it: only the columns
+     * that change whenever a summary does, read through the same filters, order and indexes
+     * @param spec Filters, may be null
+     * @param limit Maximum number of rows
+     * @return {id, updatedAt, product name, product price, username} per matching order, newest first
+     */
+    List<Object[]> findSummaryVersions(Specification<Order> spec, int limit);
+}
@@ -0,0 +1,60 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+// Criteria version of OrderRepository.SUMMARY_SELECT
+class OrderSearchRepositoryImpl implements OrderSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderSummary> findSummaries(Specification<Order> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderSummary> query = cb.createQuery(OrderSummary.class);
+        Root<Order> o = query.from(Order.class);
+        Join<Order, Product> p = o.join("product");
+        Join<Order, User> u = o.join("user");
+        query.select(cb.construct(OrderSummary.class, o.get("id"), o.get("orderDate"), o.get("quantity"),
+                o.get("unitPrice"), o.get("comments"), o.get("createdAt"), o.get("updatedAt"),
+                p.get("id"), p.get("name"), p.get("price"), u.get("id"), u.get("username")));
+        return page(query, o, spec, cb, limit);
+    }
+
+    // Every other summary field is set at insert or bumps updatedAt when it changes
+    @Override
+    public List<Object[]> findSummaryVersions(Specification<Order> spec, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<Order> o = query.from(Order.class);
+        Join<Order, Product> p = o.join("product");
+        Join<Order, User> u = o.join("user");
+        query.multiselect(o.get("id"), o.get("updatedAt"), p.get("name"), p.get("price"), u.get("username"));
+        return page(query, o, spec, cb, limit);
+    }
+
+    private <T> List<T> page(CriteriaQuery<T> query, Root<Order> o, Specification<Order> spec, CriteriaBuilder cb,
+                             int limit) {
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(o, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(cb.desc(o.get("createdAt")), cb.desc(o.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.OrderCursor;
+import com.example.crud.dto.OrderSearchCriteria;
+import com.example.crud.model.Order;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+
+/**
+ * Filters for the order search.
+ * <p>
+ * Each filter that can narrow the search has an index leading with its column: user_id (user_id, created_at, id),
+ * product_id (product_id, order_date) and order_date (order_date). The quantity bounds are only applied to rows
+ * those indexes, or the (created_at, id) index when no other filter is set, already selected.
+ */
+public final class OrderSpecifications {
+
+    private OrderSpecifications() {
+    }
+
+    public static Specification<Order> matching(OrderSearchCriteria criteria) {
+        return Specification.where(userId(criteria.getUserId()))
+                .and(productId(criteria.getProductId()))
+                .and(orderDateFrom(criteria.getFrom()))
+                .and(orderDateTo(criteria.getTo()))
+                .and(minQuantity(criteria.getMinQuantity()))
+                .and(maxQuantity(criteria.getMaxQuantity()));
+    }
+
+    public static Specification<Order> userId(Long userId) {
+        return userId == null ? null : (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static Specification<Order> productId(Long productId) {
+        return productId == null ? null : (root, query, cb) -> cb.equal(root.get("product").get("id"), productId);
+    }
+
+    public static Specification<Order> orderDateFrom(LocalDate from) {
+        return from == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("orderDate"), from);
+    }
+
+    public static Specification<Order> orderDateTo(LocalDate to) {
+        return to == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("orderDate"), to);
+    }
+
+    public static Specification<Order> minQuantity(Integer min) {
+        return min == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("quantity"), min);
+    }
+
+    public static Specification<Order> maxQuantity(Integer max) {
+        return max == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("quantity"), max);
+    }
+
+    // Keyset position: orders strictly after the cursor in (createdAt DESC, id DESC) order
+    public static Specification<Order> after(OrderCursor cursor) {
+        return cursor == null ? null : (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("createdAt"), cursor.getCreatedAt()),
+                cb.and(cb.equal(root.get("createdAt"), cursor.getCreatedAt()),
+                        cb.lessThan(root.get("id"), cursor.getId())));
+    }
+}
@@ -2,8 +2,12 @@ package com.example.crud.repository;
 
 import com.example.crud.model.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,4 +20,25 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     
     // Find products with price greater than the given value
     List<Product> findByPriceGreaterThan(Double price);
+    
+    // Find the products with any of the given names (bulk import upserts)
+    List<Product> findByNameIn(Collection<String> names);
+
+    // Bulk repricing: price * factor + offset rounded to cents; rows it would make non-positive are left unchanged
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.price = round(p.price * :factor + :offset, 2) " +
+           "WHERE p.id IN :ids AND round(p.price * :factor + :offset, 2) > 0")
+    int adjustPriceByIdIn(@Param("ids") Collection<Long> ids, @Param("factor") double factor,
+                          @Param("offset") double offset);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.price = round(p.price * :factor + :offset, 2) " +
+           "WHERE p.price BETWEEN :min AND :max AND round(p.price * :factor + :offset, 2) > 0")
+    int adjustPriceByPriceBetween(@Param("min") double min, @Param("max") double max,
+                                  @Param("factor") double factor, @Param("offset") double offset);
+
+    // Bulk delete; products that still have orders are kept, as the orders reference them
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Product p WHERE p.id IN :ids AND NOT EXISTS (SELECT o.id FROM Order o WHERE o.product = p)")
+    int deleteUnorderedByIdIn(@Param("ids") Collection<Long> ids);
 }
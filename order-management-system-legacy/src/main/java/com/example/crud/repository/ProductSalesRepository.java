@@ -0,0 +1,37 @@
+package com.example.crud.repository;
+
+import com.example.crud.model.ProductSales;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface ProductSalesRepository extends JpaRepository<ProductSales, Long> {
+
+    // Add a (possibly negative) delta to a product, creating its row on first use
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "product_sales"))
+    @Query(value = "INSERT INTO product_sales (product_id, order_count, units, revenue) VALUES (:productId, :orders, :units, :revenue) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + :orders, units = units + :units, revenue = revenue + :revenue",
+           nativeQuery = true)
+    void addDelta(@Param("productId") Long productId, @Param("orders") long orders,
+                  @Param("units") long units, @Param("revenue") BigDecimal revenue);
+
+    // Recompute every row from the orders table (the table must be empty)
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "product_sales"))
+    @Query(value = "INSERT INTO product_sales (product_id, order_count, units, revenue) " +
+                   "SELECT product_id, COUNT(*), SUM(quantity), SUM(quantity * CAST(COALESCE(unit_price, 0) AS DECIMAL(19, 2))) FROM orders GROUP BY product_id",
+           nativeQuery = true)
+    int rebuild();
+
+    List<ProductSales> findAllByOrderByRevenueDesc(Pageable pageable);
+}
@@ -1,15 +1,33 @@
 package com.example.crud.repository;
 
 import com.example.crud.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    // Runs on every authenticated request; served from the query cache until the users table changes
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     Optional<User> findByUsername(String username);
     
     boolean existsByUsername(String username);
+
+    // Which of many usernames are taken, in one IN query; names match ignoring case under the default MySQL collation
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    // Keyset pages of the user list, in username order
+    List<User> findAllByOrderByUsernameAsc(Pageable pageable);
+
+    List<User> findByUsernameGreaterThanOrderByUsernameAsc(String username, Pageable pageable);
 }
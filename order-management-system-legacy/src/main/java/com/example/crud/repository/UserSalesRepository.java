@@ -0,0 +1,37 @@
+package com.example.crud.repository;
+
+import com.example.crud.model.UserSales;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface UserSalesRepository extends JpaRepository<UserSales, Long> {
+
+    // Add a (possibly negative) delta to a user, creating its row on first use
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "user_sales"))
+    @Query(value = "INSERT INTO user_sales (user_id, order_count, units, revenue) VALUES (:userId, :orders, :units, :revenue) " +
+                   "ON DUPLICATE KEY UPDATE order_count = order_count + :orders, units = units + :units, revenue = revenue + :revenue",
+           nativeQuery = true)
+    void addDelta(@Param("userId") Long userId, @Param("orders") long orders,
+                  @Param("units") long units, @Param("revenue") BigDecimal revenue);
+
+    // Recompute every row from the orders table (the table must be empty)
+    @Modifying
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.NATIVE_SPACES, value = "user_sales"))
+    @Query(value = "INSERT INTO user_sales (user_id, order_count, units, revenue) " +
+                   "SELECT user_id, COUNT(*), SUM(quantity), SUM(quantity * CAST(COALESCE(unit_price, 0) AS DECIMAL(19, 2))) FROM orders GROUP BY user_id",
+           nativeQuery = true)
+    int rebuild();
+
+    List<UserSales> findAllByOrderByRevenueDesc(Pageable pageable);
+}
@@ -0,0 +1,183 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.TokenResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Issues and verifies stateless API access tokens: JWTs signed with HMAC-SHA256 (HS256).
+ * <p>
+ * A token carries the username ("sub"), user id ("uid"), roles and its issue and expiry times, so verifying one
+ * is a signature check and a small JSON parse, with no database or password hash work. The flip side is that a
+ * token stays valid until it expires even if the user is changed or deleted, so security.token.ttl-seconds
+ * bounds how long such changes take to reach token holders. It defaults to 15 minutes: a client holding a
+ * password re-authenticates a few times an hour, in exchange for a disabled user or a revoked role being shut
+ * out within minutes rather than a day.
+ * <p>
+ * Every node must share security.token.secret (at least 32 bytes, base64) to accept each other's tokens.
+ * Without it a random key is generated at startup, and tokens only work on this node until it restarts.
+ */
+@Service
+public class AccessTokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccessTokenService.class);
+
+    public static final String TOKEN_TYPE = "Bearer";
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+    // Only tokens with exactly this header are accepted, which rules out "alg":"none" and algorithm confusion
+    private static final String HEADER = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final long ttlSeconds;
+    private final ThreadLocal<Mac> macs;
+
+    @Autowired
+    public AccessTokenService(ObjectMapper objectMapper,
+                              @Value("${security.token.secret:}") String secret,
+                              @Value("${security.token.ttl-seconds:900}") long ttlSeconds) {
+        this(objectMapper, secret, ttlSeconds, Clock.systemUTC());
+    }
+
+    AccessTokenService(ObjectMapper objectMapper, String secret, long ttlSeconds, Clock clock) {
+        if (ttlSeconds <= 0) {
+            throw new IllegalArgumentException("security.token.ttl-seconds must be positive");
+        }
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttlSeconds = ttlSeconds;
+        SecretKeySpec key = new SecretKeySpec(secretBytes(secret), MAC_ALGORITHM);
+        // Mac instances are not thread-safe; one per thread saves the provider lookup on every request
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+            }
+        });
+    }
+
+    /**
+     * Issue a token for a user whose password has been checked
+     * @param user The authenticated user
+     * @return The signed token with its lifetime and the user it was issued to
+     */
+    public TokenResponse issue(AppUserPrincipal user) {
+        Instant issuedAt = clock.instant();
+        List<String> roles = new ArrayList<>(user.getRoles());
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.getUsername());
+        claims.put("uid", user.getId());
+        claims.put("roles", roles);
+        claims.put("iat", issuedAt.getEpochSecond());
+        claims.put("exp", issuedAt.getEpochSecond() + ttlSeconds);
+
+        String payload;
+        try {
+            payload = encode(objectMapper.writeValueAsBytes(claims));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write token claims", e);
+        }
+        String token = HEADER + "." + payload + "." + encode(sign(HEADER + "." + payload));
+        return new TokenResponse(token, TOKEN_TYPE, ttlSeconds, issuedAt,
+                new TokenResponse.UserInfo(user.getId(), user.getUsername(), roles));
+    }
+
+    /**
+     * Verify a token and turn it into an authentication
+     * @param token The token, without the "Bearer " prefix
+     * @return The authenticated user, an {@link AppUserPrincipal} with a ROLE_ authority per role
+     * @throws BadCredentialsException If the token is malformed, not signed with our key or expired
+     */
+    public Authentication verify(String token) {
+        int firstDot = token.indexOf('.');
+        int lastDot = token.lastIndexOf('.');
+        if (firstDot != HEADER.length() || firstDot == lastDot || !token.startsWith(HEADER)) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        byte[] signature;
+        try {
+            signature = Base64.getUrlDecoder().decode(token.substring(lastDot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        if (!MessageDigest.isEqual(signature, sign(token.substring(0, lastDot)))) {
+            throw new BadCredentialsException("Invalid token");
+        }
+
+        JsonNode claims;
+        try {
+            claims = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(firstDot + 1, lastDot)));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        if (!claims.path("exp").canConvertToLong() || clock.instant().getEpochSecond() >= claims.get("exp").asLong()) {
+            throw new BadCredentialsException("Token expired");
+        }
+        String username = claims.path("sub").asText("");
+        if (username.isEmpty() || !claims.path("uid").canConvertToLong()) {
+            throw new BadCredentialsException("Invalid token");
+        }
+        List<String> roles = new ArrayList<>();
+        for (JsonNode role : claims.path("roles")) {
+            roles.add(role.asText());
+        }
+        // Disabled users cannot log in, so a token was only ever issued to an enabled one
+        AppUserPrincipal principal = new AppUserPrincipal(claims.get("uid").asLong(), username, null, true, roles);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    private byte[] sign(String content) {
+        return macs.get().doFinal(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static byte[] secretBytes(String secret) {
+        if (!StringUtils.hasText(secret)) {
+            logger.warn("security.token.secret is not set; access tokens will only be valid on this node until it restarts");
+            byte[] random = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(secret.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("security.token.secret must be base64", e);
+        }
+        if (bytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("security.token.secret must be at least " + MIN_SECRET_BYTES + " bytes");
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.crud.service;
+
+import com.example.crud.model.User;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The authenticated user, as kept in the security context for the rest of the session or request.
+ * <p>
+ * It carries the user id, roles and enabled flag alongside the username, so handling a request needs no further
+ * user query: controllers receive it as an argument (see {@code CurrentUserArgumentResolver}) and
+ * {@link #toUser()} stands in for the entity wherever only a reference to the user row is needed.
+ * Built from the database at login and from the claims of a bearer token.
+ */
+public class AppUserPrincipal implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String username;
+    private String password;
+    private final boolean enabled;
+    private final Set<String> roles;
+    private final List<GrantedAuthority> authorities;
+
+    public AppUserPrincipal(Long id, String username, String password, boolean enabled, Collection<String> roles) {
+        this.id = id;
+        this.username = username;
+        this.password = password;
+        this.enabled = enabled;
+        this.roles = Collections.unmodifiableSet(new TreeSet<>(roles));
+        List<GrantedAuthority> granted = new ArrayList<>(this.roles.size());
+        for (String role : this.roles) {
+            granted.add(new SimpleGrantedAuthority("ROLE_" + role));
+        }
+        this.authorities = Collections.unmodifiableList(granted);
+    }
+
+    public static AppUserPrincipal of(User user) {
+        return new AppUserPrincipal(user.getId(), user.getUsername(), user.getPassword(), user.isEnabled(),
+                user.getRoles());
+    }
+
+    /**
+     * Copy this principal without its password hash
+     * @return A principal for the same user whose password is null
+     */
+    public AppUserPrincipal withoutPassword() {
+        return new AppUserPrincipal(id, username, null, enabled, roles);
+    }
+
+    /**
+     * Detached user holding the id, username, roles and enabled flag, but no password.
+     * Enough to reference the user from an order or query log entry without loading it.
+     * @return A new, unmanaged user
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setUsername(username);
+        user.setRoles(new HashSet<>(roles));
+        user.setEnabled(enabled);
+        return user;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Set<String> getRoles() {
+        return roles;
+    }
+
+    public boolean hasRole(String role) {
+        return roles.contains(role);
+    }
+
+    public boolean isAdmin() {
+        return hasRole("ADMIN");
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    // Equal by username, like Spring Security's own User, so session tracking sees one principal per user
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof AppUserPrincipal && username.equals(((AppUserPrincipal) other).username);
+    }
+
+    @Override
+    public int hashCode() {
+        return username.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "AppUserPrincipal[id=" + id + ", username=" + username + ", roles=" + roles + "]";
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.crud.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Username/password authentication that remembers recently verified credentials.
+ * <p>
+ * Every HTTP Basic request carries the password, and checking it means loading the user and running BCrypt.
+ * Once a username and password have been verified, their HMAC-SHA256 under a random key generated at startup
+ * is kept for security.credential-cache.ttl-ms, and the same pair is then accepted without either step. The
+ * cache holds neither the password nor its hash, and the key never leaves memory, so the cached entries are
+ * useless for guessing passwords. Failed attempts are not cached and always pay for BCrypt.
+ * <p>
+ * {@link UserServiceImpl} calls {@link #invalidate(String)} when a user is changed or deleted, so a new
+ * password, role or disabled flag takes effect on the next request; changes made outside it are picked up
+ * when the entry expires.
+ */
+@Service
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final DaoAuthenticationProvider delegate = new DaoAuthenticationProvider();
+    private final ThreadLocal<Mac> macs;
+    private final Cache<String, AppUserPrincipal> verified;
+    // Bumped by every invalidation, so a check that raced with one does not cache what it loaded before it
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public CachingAuthenticationProvider(CustomUserDetailsService userDetailsService,
+                                         PasswordEncoder passwordEncoder,
+                                         @Value("${security.credential-cache.maximum-size:10000}") long maximumSize,
+                                         @Value("${security.credential-cache.ttl-ms:60000}") long ttlMs) {
+        delegate.setUserDetailsService(userDetailsService);
+        delegate.setPasswordEncoder(passwordEncoder);
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        // Mac instances are not thread-safe; one per thread saves the provider lookup on every authentication
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(MAC_ALGORITHM + " is not available", e);
+            }
+        });
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication.getCredentials() instanceof String)) {
+            return delegate.authenticate(authentication);
+        }
+        String cacheKey = cacheKey(authentication.getName(), (String) authentication.getCredentials());
+        AppUserPrincipal user = verified.getIfPresent(cacheKey);
+        if (user != null) {
+            return authenticated(authentication, user);
+        }
+
+        long seen = generation.get();
+        Authentication result = delegate.authenticate(authentication);
+        if (result.getPrincipal() instanceof AppUserPrincipal) {
+            // Copied without the password hash, which the cache must not hold
+            verified.put(cacheKey, ((AppUserPrincipal) result.getPrincipal()).withoutPassword());
+            if (generation.get() != seen) {
+                verified.invalidate(cacheKey);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    /**
+     * Forget every verified password of a user
+     * @param username Name of the user that changed
+     */
+    public void invalidate(String username) {
+        generation.incrementAndGet();
+        verified.asMap().values().removeIf(user -> user.getUsername().equals(username));
+    }
+
+    long getCachedCount() {
+        verified.cleanUp();
+        return verified.estimatedSize();
+    }
+
+    private Authentication authenticated(Authentication request, AppUserPrincipal user) {
+        UsernamePasswordAuthenticationToken result =
+                new UsernamePasswordAuthenticationToken(user, request.getCredentials(), user.getAuthorities());
+        result.setDetails(request.getDetails());
+        return result;
+    }
+
+    // The length prefix keeps "ab" + "c" and "a" + "bc" apart
+    private String cacheKey(String username, String password) {
+        Mac mac = macs.get();
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        mac.update(new byte[] {(byte) (name.length >>> 24), (byte) (name.length >>> 16),
+                (byte) (name.length >>> 8), (byte) name.length});
+        mac.update(name);
+        // doFinal also resets the Mac for the next key on this thread
+        return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+}
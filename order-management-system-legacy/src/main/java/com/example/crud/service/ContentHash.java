@@ -0,0 +1,112 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * 64-bit FNV-1a hash of the fields a resource is rendered from, used for strong ETags.
+ * <p>
+ * Fields are hashed from memory in a fixed order, so a tag costs no serialization and is the same on every
+ * instance and across restarts. Strings are hashed character by character rather than through
+ * {@link String#hashCode()}, whose 32-bit collisions ("Aa" and "BB") would let a changed field keep its tag.
+ */
+public final class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET_BASIS;
+
+    public static long of(Product product) {
+        return new ContentHash()
+                .add(product.getId())
+                .add(product.getName())
+                .add(product.getDescription())
+                .add(product.getPrice())
+                .add(product.getCreatedAt())
+                .get();
+    }
+
+    // Everything rendered for an order, including its user and product
+    public static long of(Order order) {
+        User user = order.getUser();
+        ContentHash hash = new ContentHash()
+                .add(order.getId())
+                .add(order.getOrderDate())
+                .add(order.getQuantity())
+                .add(order.getUnitPrice())
+                .add(order.getComments())
+                .add(order.getCreatedAt())
+                .add(order.getUpdatedAt())
+                .add(of(order.getProduct()))
+                .add(user.getId())
+                .add(user.getUsername())
+                .add(user.isEnabled() ? 1 : 0);
+        for (String role : user.getRoles()) {
+            hash.add(role);
+        }
+        return hash.get();
+    }
+
+    /**
+     * Format a hash as a strong entity tag
+     * @param hash A content hash
+     * @return The quoted tag, as sent in the ETag header
+     */
+    public static String toETag(long hash) {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+
+    public ContentHash add(long value) {
+        for (int shift = 0; shift < 64; shift += 8) {
+            hash = (hash ^ ((value >>> shift) & 0xff)) * PRIME;
+        }
+        return this;
+    }
+
+    public ContentHash add(String value) {
+        if (value == null) {
+            return addNull();
+        }
+        add(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            hash = (hash ^ (c & 0xff)) * PRIME;
+            hash = (hash ^ (c >>> 8)) * PRIME;
+        }
+        return this;
+    }
+
+    public ContentHash add(Long value) {
+        return value == null ? addNull() : add(value.longValue());
+    }
+
+    public ContentHash add(Integer value) {
+        return value == null ? addNull() : add(value.longValue());
+    }
+
+    public ContentHash add(Double value) {
+        return value == null ? addNull() : add(Double.doubleToLongBits(value));
+    }
+
+    public ContentHash add(Date value) {
+        return value == null ? addNull() : add(value.getTime());
+    }
+
+    public ContentHash add(LocalDate value) {
+        return value == null ? addNull() : add(value.toEpochDay());
+    }
+
+    public long get() {
+        return hash;
+    }
+
+    // Strings are prefixed by their length, so a null string hashes like the length -1, which no string has
+    private ContentHash addNull() {
+        return add(-1L);
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.OrderSummary;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes order dumps as CSV or NDJSON.
+ * <p>
+ * Orders are formatted one at a time as they come off the database cursor and written through a fixed-size
+ * buffer, so the heap used does not grow with the number of orders and the first bytes leave as soon as the
+ * buffer fills.
+ */
+@Service
+public class OrderExportService {
+
+    private static final String CSV_HEADER = "id,order_date,created_at,user_id,username,product_id,product_name,"
+            + "quantity,unit_price,total,comments";
+
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${orders.export.buffer-bytes:65536}")
+    private int bufferBytes;
+
+    @Autowired
+    public OrderExportService(OrderService orderService, ObjectMapper objectMapper) {
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write the orders placed in a date range, in creation order
+     * @param format CSV with a header row, or one JSON order summary per line
+     * @param from First order date, null for no lower bound
+     * @param to Last order date, null for no upper bound
+     * @param gzip Whether to gzip the output
+     * @param out Destination, left open
+     */
+    public void export(DataFormat format, LocalDate from, LocalDate to, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = new NonClosingOutputStream(out);
+        if (gzip) {
+            target = new GZIPOutputStream(target, bufferBytes);
+        }
+        // Closing the writer flushes it and writes the gzip trailer; the servlet stream itself stays open
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), bufferBytes)) {
+            if (format == DataFormat.CSV) {
+                writeCsv(from, to, writer);
+            } else {
+                writeNdjson(from, to, writer);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void writeCsv(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        StringBuilder line = new StringBuilder(256);
+        orderService.streamOrders(from, to, order -> {
+            line.setLength(0);
+            appendCsvRow(line, order);
+            try {
+                writer.append(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void writeNdjson(LocalDate from, LocalDate to, Writer writer) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(writer)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        generator.setRootValueSeparator(null);
+        orderService.streamOrders(from, to, order -> {
+            try {
+                generator.writeObject(order);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+
+    private static void appendCsvRow(StringBuilder line, OrderSummary order) {
+        Double total = order.getUnitPrice() == null || order.getQuantity() == null
+                ? null : order.getUnitPrice() * order.getQuantity();
+        line.append(order.getId()).append(',')
+                .append(nullToEmpty(order.getOrderDate())).append(',')
+                .append(order.getCreatedAt() == null ? "" : formatInstant(order.getCreatedAt())).append(',')
+                .append(nullToEmpty(order.getUserId())).append(',');
+        appendCsvField(line, order.getUsername());
+        line.append(',').append(nullToEmpty(order.getProductId())).append(',');
+        appendCsvField(line, order.getProductName());
+        line.append(',').append(nullToEmpty(order.getQuantity()))
+                .append(',').append(formatAmount(order.getUnitPrice()))
+                .append(',').append(formatAmount(total))
+                .append(',');
+        appendCsvField(line, order.getComments());
+        line.append('\n');
+    }
+
+    // RFC 4180: quote fields holding a separator, quote or line break, doubling embedded quotes
+    private static void appendCsvField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static String formatInstant(Date date) {
+        return date.toInstant().toString();
+    }
+
+    // Plain decimal notation, never exponents such as 1.2E7
+    private static String formatAmount(Double amount) {
+        return amount == null ? "" : BigDecimal.valueOf(amount).toPlainString();
+    }
+
+    private static Object nullToEmpty(Object value) {
+        return value == null ? "" : value;
+    }
+
+    // Lets the writers be closed, to flush them and finish the gzip stream, without closing the servlet stream
+    private static class NonClosingOutputStream extends OutputStream {
+
+        private final OutputStream target;
+
+        NonClosingOutputStream(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            target.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            target.flush();
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.IntakeStatus;
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import com.example.crud.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous order intake (orders.async-intake.enabled).
+ * <p>
+ * Accepted orders are written to a local fsync'd journal and acknowledged right away with a tracking id.
+ * A single committer thread drains them to the database in batches through
+ * {@link OrderService#createOrders(List, int)}, so many requests share one transaction. Orders still in
+ * the journal at startup are replayed, skipping those whose tracking id is already in the orders table.
+ */
+@Service
+public class OrderIntakeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeService.class);
+    private static final long RETRY_BACKOFF_MS = 1000;
+    private static final long SHUTDOWN_WAIT_MS = 10_000;
+    private static final int REPLAY_LOOKUP_CHUNK = 1000;
+
+    private final OrderService orderService;
+    private final OrderRepository orderRepository;
+    private final ObjectMapper objectMapper;
+
+    // Status of recently accepted orders; older ones are answered from the orders table
+    private final Cache<String, IntakeStatus> statuses = Caffeine.newBuilder()
+            .maximumSize(200_000)
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    @Value("${orders.async-intake.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.async-intake.journal-dir:data/order-journal}")
+    private String journalDir;
+
+    @Value("${orders.async-intake.segment-bytes:67108864}")
+    private long segmentBytes;
+
+    @Value("${orders.async-intake.batch-size:500}")
+    private int batchSize;
+
+    @Value("${orders.async-intake.capacity:100000}")
+    private int capacity;
+
+    private OrderJournal journal;
+    private final BlockingQueue<OrderJournal.Entry> queue = new LinkedBlockingQueue<>();
+    // Bounds the orders accepted but not yet committed; set before running, so a running intake always has it
+    private volatile Semaphore permits;
+    private Thread committer;
+    private volatile boolean running;
+
+    @Autowired
+    public OrderIntakeService(OrderService orderService, OrderRepository orderRepository, ObjectMapper objectMapper) {
+        this.orderService = orderService;
+        this.orderRepository = orderRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Before the web server starts, so no request can reach submit before the journal is open
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        journal = new OrderJournal(Paths.get(journalDir), segmentBytes, objectMapper);
+        List<OrderJournal.Entry> pending = uncommitted(journal.open());
+        // May start negative when more orders were recovered than the configured capacity
+        permits = new Semaphore(capacity - pending.size());
+        if (!pending.isEmpty()) {
+            long firstNewSegment = journal.currentSegment();
+            journal.appendAll(pending);
+            journal.deleteSegmentsBefore(firstNewSegment);
+            for (OrderJournal.Entry entry : pending) {
+                statuses.put(entry.trackingId, IntakeStatus.pending(entry.trackingId, entry.username));
+                queue.add(entry);
+            }
+            logger.info("Replaying {} journaled orders", pending.size());
+        }
+        running = true;
+        committer = new Thread(this::drain, "order-intake-committer");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        committer.join(SHUTDOWN_WAIT_MS);
+        // Whatever was not committed stays in the journal for the next start
+        journal.close();
+    }
+
+    /**
+     * Journal an order and queue it for the committer
+     * @param order The order, already validated
+     * @param user Its owner
+     * @return The PENDING status holding the tracking id
+     * @throws RejectedExecutionException If the intake is not running or too many orders are waiting to be committed
+     */
+    public IntakeStatus submit(Order order, User user) {
+        if (!running) {
+            throw new RejectedExecutionException("Order intake is not running, retry later");
+        }
+        if (!permits.tryAcquire()) {
+            throw new RejectedExecutionException("Order intake is at capacity, retry later");
+        }
+        OrderJournal.Entry entry = new OrderJournal.Entry();
+        entry.trackingId = UUID.randomUUID().toString();
+        entry.userId = user.getId();
+        entry.username = user.getUsername();
+        entry.orderDate = order.getOrderDate();
+        entry.productId = order.getProduct() == null ? null : order.getProduct().getId();
+        entry.quantity = order.getQuantity();
+        entry.comments = order.getComments();
+        try {
+            journal.append(entry);
+        } catch (IOException e) {
+            permits.release();
+            throw new UncheckedIOException("Could not journal order", e);
+        }
+        IntakeStatus status = IntakeStatus.pending(entry.trackingId, entry.username);
+        statuses.put(entry.trackingId, status);
+        queue.add(entry);
+        return status;
+    }
+
+    public Optional<IntakeStatus> getStatus(String trackingId) {
+        IntakeStatus status = statuses.getIfPresent(trackingId);
+        if (status != null) {
+            return Optional.of(status);
+        }
+        return orderRepository.findSummaryByTrackingId(trackingId)
+                .map(order -> IntakeStatus.created(trackingId, order.getId(), order.getUsername()));
+    }
+
+    // Drop duplicate and already committed entries left by a previous run
+    private List<OrderJournal.Entry> uncommitted(List<OrderJournal.Entry> recovered) {
+        Map<String, OrderJournal.Entry> byTrackingId = new LinkedHashMap<>();
+        for (OrderJournal.Entry entry : recovered) {
+            byTrackingId.putIfAbsent(entry.trackingId, entry);
+        }
+        List<String> trackingIds = new ArrayList<>(byTrackingId.keySet());
+        Set<String> committed = new HashSet<>();
+        for (int i = 0; i < trackingIds.size(); i += REPLAY_LOOKUP_CHUNK) {
+            committed.addAll(orderRepository.findExistingTrackingIds(
+                    trackingIds.subList(i, Math.min(i + REPLAY_LOOKUP_CHUNK, trackingIds.size()))));
+        }
+        byTrackingId.keySet().removeAll(committed);
+        return new ArrayList<>(byTrackingId.values());
+    }
+
+    private void drain() {
+        List<OrderJournal.Entry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // Everything that queued up while the previous batch was committing goes in together
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Order intake committer failed", e);
+            }
+            batch.clear();
+        }
+    }
+
+    private void commit(List<OrderJournal.Entry> batch) throws InterruptedException {
+        while (true) {
+            try {
+                record(batch, orderService.createOrders(toOrders(batch), 0));
+                return;
+            } catch (TransientDataAccessException | DataAccessResourceFailureException | CannotCreateTransactionException e) {
+                if (!running) {
+                    logger.warn("Database unavailable at shutdown, {} orders left in the journal", batch.size());
+                    return;
+                }
+                logger.warn("Database unavailable, retrying {} journaled orders: {}", batch.size(), e.getMessage());
+                Thread.sleep(RETRY_BACKOFF_MS);
+            } catch (RuntimeException e) {
+                if (batch.size() == 1) {
+                    OrderJournal.Entry entry = batch.get(0);
+                    statuses.put(entry.trackingId, IntakeStatus.failed(entry.trackingId,
+                            Collections.singletonList(e.getMessage()), entry.username));
+                    done(batch);
+                    return;
+                }
+                // Commit one by one so a single bad order does not hold back the rest of the batch
+                for (OrderJournal.Entry entry : batch) {
+                    commit(Collections.singletonList(entry));
+                }
+                return;
+            }
+        }
+    }
+
+    private void record(List<OrderJournal.Entry> batch, List<BatchItemResult> results) {
+        for (int i = 0; i < batch.size(); i++) {
+            OrderJournal.Entry entry = batch.get(i);
+            BatchItemResult result = results.get(i);
+            statuses.put(entry.trackingId, result.getStatus() == BatchItemResult.Status.CREATED
+                    ? IntakeStatus.created(entry.trackingId, result.getId(), entry.username)
+                    : IntakeStatus.invalid(entry.trackingId, result.getErrors(), entry.username));
+        }
+        done(batch);
+    }
+
+    private void done(List<OrderJournal.Entry> batch) {
+        journal.markCommitted(batch);
+        permits.release(batch.size());
+    }
+
+    private List<Order> toOrders(List<OrderJournal.Entry> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        for (OrderJournal.Entry entry : batch) {
+            User user = new User();
+            user.setId(entry.userId);
+            Product product = null;
+            if (entry.productId != null) {
+                product = new Product();
+                product.setId(entry.productId);
+            }
+            Order order = new Order(entry.orderDate, user, product, entry.quantity, entry.comments);
+            order.setTrackingId(entry.trackingId);
+            orders.add(order);
+        }
+        return orders;
+    }
+}
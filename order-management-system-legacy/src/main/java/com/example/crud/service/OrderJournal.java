@@ -0,0 +1,247 @@
+package com.example.crud.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only, fsync'd journal of accepted orders (one JSON document per line).
+ * <p>
+ * Writers append under a short lock and then wait for an fsync covering their record. Only one fsync runs
+ * at a time and it covers every record written before it started, so concurrent writers share it (group
+ * commit). The journal is split into numbered segment files; a segment is deleted once every order in it
+ * has been committed to the database and a newer segment has taken over.
+ */
+class OrderJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderJournal.class);
+    private static final Pattern SEGMENT_NAME = Pattern.compile("orders-(\\d+)\\.log");
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final ObjectMapper objectMapper;
+
+    // Guards the channel, the count of appends and the pending counts
+    private final Object writeLock = new Object();
+    // Serializes fsync and segment rotation
+    private final Object syncLock = new Object();
+
+    private FileChannel channel;
+    private long segment;
+    private long segmentBytes;
+    private long written;
+    private long synced;
+    private final Map<Long, Integer> pendingBySegment = new HashMap<>();
+
+    OrderJournal(Path directory, long maxSegmentBytes, ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Read every entry left by a previous run and start a new segment after them.
+     * A truncated last line (crash in the middle of a write) is skipped: its writer was never acknowledged.
+     * @return The recovered entries in append order, possibly including orders that were already committed
+     */
+    List<Entry> open() throws IOException {
+        Files.createDirectories(directory);
+        TreeMap<Long, Path> segments = listSegments();
+        List<Entry> recovered = new ArrayList<>();
+        for (Path file : segments.values()) {
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    try {
+                        recovered.add(objectMapper.readValue(line, Entry.class));
+                    } catch (JsonProcessingException e) {
+                        logger.warn("Skipping unreadable order journal record in {}", file.getFileName());
+                    }
+                }
+            }
+        }
+        synchronized (writeLock) {
+            openSegment(segments.isEmpty() ? 1 : segments.lastKey() + 1);
+        }
+        return recovered;
+    }
+
+    /**
+     * Append an entry and return once it is durable on disk
+     */
+    void append(Entry entry) throws IOException {
+        appendAll(Collections.singletonList(entry));
+    }
+
+    /**
+     * Append entries together and return once all of them are durable on disk
+     */
+    void appendAll(List<Entry> entries) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Entry entry : entries) {
+            lines.append(objectMapper.writeValueAsString(entry)).append('\n');
+        }
+        ByteBuffer record = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        long position;
+        synchronized (writeLock) {
+            while (record.hasRemaining()) {
+                channel.write(record);
+            }
+            segmentBytes += record.limit();
+            for (Entry entry : entries) {
+                entry.segment = segment;
+            }
+            pendingBySegment.merge(segment, entries.size(), Integer::sum);
+            position = ++written;
+        }
+        sync(position);
+    }
+
+    private void sync(long position) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= position) {
+                // Another writer's fsync already covered this record
+                return;
+            }
+            FileChannel target;
+            long upTo;
+            synchronized (writeLock) {
+                target = channel;
+                upTo = written;
+            }
+            target.force(false);
+            synced = upTo;
+            synchronized (writeLock) {
+                // Rotate only when everything written to the current segment is known to be durable
+                if (segmentBytes >= maxSegmentBytes && written == upTo) {
+                    long previous = segment;
+                    channel.close();
+                    openSegment(segment + 1);
+                    deleteIfDrained(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record that entries were committed to the database, deleting segments that no longer hold pending orders
+     */
+    void markCommitted(Collection<Entry> entries) {
+        synchronized (writeLock) {
+            for (Entry entry : entries) {
+                pendingBySegment.merge(entry.segment, -1, Integer::sum);
+            }
+            for (Long drained : new ArrayList<>(pendingBySegment.keySet())) {
+                deleteIfDrained(drained);
+            }
+        }
+    }
+
+    /**
+     * Delete the segments that were replayed by {@link #open()}, once their surviving entries were appended again
+     */
+    void deleteSegmentsBefore(long firstKept) throws IOException {
+        for (Map.Entry<Long, Path> file : listSegments().headMap(firstKept).entrySet()) {
+            Files.deleteIfExists(file.getValue());
+        }
+    }
+
+    long currentSegment() {
+        synchronized (writeLock) {
+            return segment;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (writeLock) {
+                if (channel != null && channel.isOpen()) {
+                    channel.force(false);
+                    channel.close();
+                }
+            }
+        }
+    }
+
+    private void openSegment(long number) throws IOException {
+        segment = number;
+        segmentBytes = 0;
+        channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void deleteIfDrained(long number) {
+        if (number == segment || pendingBySegment.getOrDefault(number, 0) > 0) {
+            return;
+        }
+        pendingBySegment.remove(number);
+        try {
+            Files.deleteIfExists(segmentPath(number));
+        } catch (IOException e) {
+            // Harmless: its orders are skipped by tracking id when replayed
+            logger.warn("Could not delete order journal segment {}", number, e);
+        }
+    }
+
+    private Path segmentPath(long number) {
+        return directory.resolve("orders-" + number + ".log");
+    }
+
+    private TreeMap<Long, Path> listSegments() throws IOException {
+        TreeMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    segments.put(Long.parseLong(matcher.group(1)), file);
+                }
+            });
+        }
+        return segments;
+    }
+
+    /**
+     * One accepted order, as written to the journal
+     */
+    static class Entry {
+
+        public String trackingId;
+        public Long userId;
+        public String username;
+        public LocalDate orderDate;
+        public Long productId;
+        public Integer quantity;
+        public String comments;
+
+        // Segment the entry was appended to, not persisted
+        @JsonIgnore
+        long segment;
+    }
+}
@@ -1,16 +1,36 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.KeysetPage;
+import com.example.crud.dto.OrderCursor;
+import com.example.crud.dto.OrderSearchCriteria;
+import com.example.crud.dto.OrderSummary;
 import com.example.crud.model.Order;
-import com.example.crud.model.User;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface OrderService {
     List<Order> getAllOrders();
-    List<Order> getOrdersByUser(User user);
+    KeysetPage<OrderSummary> getOrdersPage(OrderCursor after, int limit);
+    long getOrdersPageHash(OrderCursor after, int limit);
+    KeysetPage<OrderSummary> searchOrders(OrderSearchCriteria criteria, OrderCursor after, int limit);
+    long searchOrdersHash(OrderSearchCriteria criteria, OrderCursor after, int limit);
+    void streamAllOrders(Consumer<OrderSummary> consumer);
+    void streamOrders(LocalDate from, LocalDate to, Consumer<OrderSummary> consumer);
+    List<OrderSummary> getOrderSummariesByUserId(Long userId);
+    long getOrderSummariesHashByUserId(Long userId);
     Optional<Order> getOrderById(Long id);
+    Optional<Order> getOrder(Long id, String username, boolean admin);
+    Optional<OrderSummary> getOrderSummary(Long id, String username, boolean admin);
+    List<BatchGetItem<OrderSummary>> getOrderSummaries(List<Long> ids, String username, boolean admin);
+    boolean orderExists(Long id);
     Order createOrder(Order order);
-    Order updateOrder(Order order);
+    List<BatchItemResult> createOrders(List<Order> orders, int startIndex);
+    Optional<Order> updateOrder(Long id, Order changes, String username, boolean admin);
     void deleteOrder(Long id);
+    boolean deleteOrder(Long id, String username, boolean admin);
 }
@@ -1,25 +1,80 @@
 package com.example.crud.service;
 
+import com.example.crud.config.CacheConfig;
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.KeysetPage;
+import com.example.crud.dto.OrderCursor;
+import com.example.crud.dto.OrderSearchCriteria;
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.exception.InvalidRequestException;
 import com.example.crud.model.Order;
-import com.example.crud.model.User;
+import com.example.crud.model.Product;
 import com.example.crud.repository.OrderRepository;
+import com.example.crud.repository.OrderSpecifications;
+import com.example.crud.repository.ProductRepository;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
     private final LogService logService;
+    private final Validator validator;
+    private final SalesRollupService salesRollupService;
+    private final Cache userOrdersCache;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${orders.stream.fetch-size:500}")
+    private int streamFetchSize;
+
+    @Value("${orders.export.fetch-size:1000}")
+    private int exportFetchSize;
 
     @Autowired
-    public OrderServiceImpl(OrderRepository orderRepository, LogService logService) {
+    public OrderServiceImpl(OrderRepository orderRepository, ProductRepository productRepository,
+                            LogService logService, Validator validator, SalesRollupService salesRollupService,
+                            CacheManager cacheManager) {
         this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
         this.logService = logService;
+        this.validator = validator;
+        this.salesRollupService = salesRollupService;
+        this.userOrdersCache = cacheManager.getCache(CacheConfig.USER_ORDERS);
     }
 
     @Override
@@ -28,8 +83,160 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
-    public List<Order> getOrdersByUser(User user) {
-        return orderRepository.findByUserOrderByCreatedAtDesc(user);
+    public KeysetPage<OrderSummary> getOrdersPage(OrderCursor after, int limit) {
+        // Fetch one extra row to know whether another page exists
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        List<OrderSummary> orders = after == null
+                ? orderRepository.findFirstPage(pageRequest)
+                : orderRepository.findPageAfter(after.getCreatedAt(), after.getId(), pageRequest);
+        if (orders.size() <= limit) {
+            return new KeysetPage<>(orders, null);
+        }
+        List<OrderSummary> page = orders.subList(0, limit);
+        return new KeysetPage<>(page, OrderCursor.of(page.get(limit - 1)).encode());
+    }
+
+    /**
+     * Hash what {@link #getOrdersPage} would return from a narrow query over the same rows, without building the
+     * page, so an unchanged page can be answered before it is loaded
+     * @param after Position after which the page starts, null for the first page
+     * @param limit Page size
+     * @return Equal for equal pages, including whether another page follows
+     */
+    @Override
+    public long getOrdersPageHash(OrderCursor after, int limit) {
+        return hashVersions(orderRepository.findSummaryVersions(OrderSpecifications.after(after), limit + 1));
+    }
+
+    /**
+     * Search orders, newest first, one keyset page at a time
+     * @param criteria Filters, unset ones match everything
+     * @param after Position after which the page starts, null for the first page
+     * @param limit Page size
+     * @return The page and the cursor of the next one
+     * @throws InvalidRequestException If a range has its lower bound above its upper bound
+     */
+    @Override
+    public KeysetPage<OrderSummary> searchOrders(OrderSearchCriteria criteria, OrderCursor after, int limit) {
+        checkRanges(criteria);
+        List<OrderSummary> orders = orderRepository.findSummaries(
+                OrderSpecifications.matching(criteria).and(OrderSpecifications.after(after)), limit + 1);
+        if (orders.size() <= limit) {
+            return new KeysetPage<>(orders, null);
+        }
+        List<OrderSummary> page = orders.subList(0, limit);
+        return new KeysetPage<>(page, OrderCursor.of(page.get(limit - 1)).encode());
+    }
+
+    /**
+     * Hash what {@link #searchOrders} would return from a narrow query over the same rows, without building the page
+     * @param criteria Filters, unset ones match everything
+     * @param after Position after which the page starts, null for the first page
+     * @param limit Page size
+     * @return Equal for equal pages, including whether another page follows
+     * @throws InvalidRequestException If a range has its lower bound above its upper bound
+     */
+    @Override
+    public long searchOrdersHash(OrderSearchCriteria criteria, OrderCursor after, int limit) {
+        checkRanges(criteria);
+        return hashVersions(orderRepository.findSummaryVersions(
+                OrderSpecifications.matching(criteria).and(OrderSpecifications.after(after)), limit + 1));
+    }
+
+    private static void checkRanges(OrderSearchCriteria criteria) {
+        if (criteria.getFrom() != null && criteria.getTo() != null && criteria.getFrom().isAfter(criteria.getTo())) {
+            throw new InvalidRequestException("'from' must not be after 'to'");
+        }
+        if (criteria.getMinQuantity() != null && criteria.getMaxQuantity() != null
+                && criteria.getMinQuantity() > criteria.getMaxQuantity()) {
+            throw new InvalidRequestException("'minQuantity' must not be greater than 'maxQuantity'");
+        }
+    }
+
+    // The rows of findSummaryVersions, in order: {id, updatedAt, product name, product price, username}
+    private static long hashVersions(List<Object[]> rows) {
+        ContentHash hash = new ContentHash().add(rows.size());
+        for (Object[] row : rows) {
+            hash.add((Long) row[0])
+                    .add((Date) row[1])
+                    .add((String) row[2])
+                    .add((Double) row[3])
+                    .add((String) row[4]);
+        }
+        return hash.get();
+    }
+
+    /**
+     * Pass every order, newest first, to the consumer without holding the result set in memory.
+     * Rows are read through a database cursor with orders.stream.fetch-size rows per round trip and
+     * projected straight into summaries, so nothing accumulates in the persistence context.
+     * @param consumer Receives each order summary
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAllOrders(Consumer<OrderSummary> consumer) {
+        try (Stream<OrderSummary> orders = entityManager.createQuery(
+                        OrderRepository.SUMMARY_SELECT + "ORDER BY o.createdAt DESC, o.id DESC", OrderSummary.class)
+                .setHint(QueryHints.FETCH_SIZE, streamFetchSize)
+                .getResultStream()) {
+            orders.forEachOrdered(consumer);
+        }
+    }
+
+    /**
+     * Pass the orders placed in a date range to the consumer, in creation order, without holding them in memory.
+     * Snowflake ids grow with time, so ordering by id reads the primary key in order instead of sorting.
+     * @param from First order date, null for no lower bound
+     * @param to Last order date, null for no upper bound
+     * @param consumer Receives each order summary
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamOrders(LocalDate from, LocalDate to, Consumer<OrderSummary> consumer) {
+        List<String> conditions = new ArrayList<>();
+        if (from != null) {
+            conditions.add("o.orderDate >= :from");
+        }
+        if (to != null) {
+            conditions.add("o.orderDate <= :to");
+        }
+        String where = conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+        TypedQuery<OrderSummary> query = entityManager.createQuery(
+                        OrderRepository.SUMMARY_SELECT + where + "ORDER BY o.id", OrderSummary.class)
+                .setHint(QueryHints.FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.READ_ONLY, true);
+        if (from != null) {
+            query.setParameter("from", from);
+        }
+        if (to != null) {
+            query.setParameter("to", to);
+        }
+        try (Stream<OrderSummary> orders = query.getResultStream()) {
+            orders.forEachOrdered(consumer);
+        }
+    }
+
+    /**
+     * Get the orders of a user, newest first.
+     * Results are cached per user id and evicted whenever one of the user's orders is written; the whole cache is
+     * dropped when products are repriced, as summaries carry the current product price.
+     * @param userId The owner of the orders
+     * @return An unmodifiable list shared with other callers
+     */
+    @Override
+    @Cacheable(cacheNames = CacheConfig.USER_ORDERS, key = "#userId")
+    public List<OrderSummary> getOrderSummariesByUserId(Long userId) {
+        return Collections.unmodifiableList(orderRepository.findSummariesByUserId(userId));
+    }
+
+    /**
+     * Hash what {@link #getOrderSummariesByUserId} would return from a narrow query, without loading the summaries
+     * @param userId The owner of the orders
+     * @return Equal for equal order lists
+     */
+    @Override
+    public long getOrderSummariesHashByUserId(Long userId) {
+        return hashVersions(orderRepository.findSummaryVersions(OrderSpecifications.userId(userId), Integer.MAX_VALUE));
     }
 
     @Override
@@ -37,28 +244,262 @@ public class OrderServiceImpl implements OrderService {
         return orderRepository.findById(id);
     }
 
+    /**
+     * Get an order with its user and product in a single query, restricted to its owner unless the caller is an admin
+     * @param id The order id
+     * @param username The caller
+     * @param admin Whether the caller may access any order
+     * @return The order, or empty if it does not exist or belongs to someone else
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Order> getOrder(Long id, String username, boolean admin) {
+        return admin ? orderRepository.findWithDetailsById(id)
+                : orderRepository.findWithDetailsByIdAndUsername(id, username);
+    }
+
+    /**
+     * Get an order summary in a single query, restricted to its owner unless the caller is an admin
+     * @param id The order id
+     * @param username The caller
+     * @param admin Whether the caller may access any order
+     * @return The order, or empty if it does not exist or belongs to someone else
+     */
+    @Override
+    public Optional<OrderSummary> getOrderSummary(Long id, String username, boolean admin) {
+        return admin ? orderRepository.findSummaryById(id) : orderRepository.findSummaryByIdAndUsername(id, username);
+    }
+
+    /**
+     * Get several orders with one IN query, checking ownership per order as {@link #getOrderSummary} does
+     * @param ids The order ids; repeated ids are answered at each position
+     * @param username The caller
+     * @param admin Whether the caller may view any order
+     * @return One result per requested id, in request order
+     */
     @Override
+    public List<BatchGetItem<OrderSummary>> getOrderSummaries(List<Long> ids, String username, boolean admin) {
+        Map<Long, OrderSummary> orders = new HashMap<>();
+        if (!ids.isEmpty()) {
+            orderRepository.findSummariesByIdIn(new HashSet<>(ids)).forEach(order -> orders.put(order.getId(), order));
+        }
+        List<BatchGetItem<OrderSummary>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            OrderSummary order = orders.get(id);
+            if (order == null) {
+                results.add(BatchGetItem.notFound(id));
+            } else if (admin || order.getUsername().equals(username)) {
+                results.add(BatchGetItem.found(id, order));
+            } else {
+                results.add(BatchGetItem.forbidden(id));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public boolean orderExists(Long id) {
+        return orderRepository.existsById(id);
+    }
+
+    /**
+     * Create an order, snapshotting the current product price as its unit price
+     * @param order The order, with its user set
+     * @return The saved order
+     */
+    @Override
+    @Transactional
     public Order createOrder(Order order) {
+        Product product = findProduct(order);
+        order.setProduct(product);
+        order.setUnitPrice(product.getPrice());
         Order savedOrder = orderRepository.save(order);
+        salesRollupService.added(Collections.singletonList(SalesRollupService.Sale.of(savedOrder)));
+        evictUserOrders(savedOrder.getUser().getId());
         logService.logAction(LogService.LogType.INFO, "Order created with ID: " + savedOrder.getId());
         return savedOrder;
     }
 
+    /**
+     * Insert a chunk of orders in a single transaction.
+     * Invalid items are reported and skipped, the valid ones are persisted together and flushed once
+     * so Hibernate can group the inserts into JDBC batches (hibernate.jdbc.batch_size).
+     * @param orders The orders to insert, each with its user already set
+     * @param startIndex Position of the first order of this chunk in the submitted payload
+     * @return One result per submitted order, in submission order
+     */
     @Override
-    public Order updateOrder(Order order) {
-        if (!orderRepository.existsById(order.getId())) {
-            throw new EntityNotFoundException("Order not found with id: " + order.getId());        }
-        Order updatedOrder = orderRepository.save(order);
-        logService.logAction(LogService.LogType.INFO, "Order updated with ID: " + updatedOrder.getId());
-        return updatedOrder;
+    @Transactional
+    public List<BatchItemResult> createOrders(List<Order> orders, int startIndex) {
+        Set<Long> productIds = new HashSet<>();
+        for (Order order : orders) {
+            if (order.getProduct() != null && order.getProduct().getId() != null) {
+                productIds.add(order.getProduct().getId());
+            }
+        }
+        // One IN query for every product referenced by the chunk
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<BatchItemResult> results = new ArrayList<>(orders.size());
+        List<Order> accepted = new ArrayList<>(orders.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            int index = startIndex + i;
+            List<String> errors = validate(order, products);
+            if (!errors.isEmpty()) {
+                results.add(BatchItemResult.invalid(index, errors));
+                continue;
+            }
+            Product product = products.get(order.getProduct().getId());
+            order.setId(null);
+            order.setProduct(product);
+            order.setUnitPrice(product.getPrice());
+            entityManager.persist(order);
+            accepted.add(order);
+            acceptedIndexes.add(results.size());
+            results.add(null);
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        salesRollupService.added(accepted.stream().map(SalesRollupService.Sale::of).collect(Collectors.toList()));
+
+        for (int i = 0; i < accepted.size(); i++) {
+            int position = acceptedIndexes.get(i);
+            results.set(position, BatchItemResult.created(startIndex + position, accepted.get(i).getId()));
+        }
+        Set<Long> userIds = new HashSet<>();
+        for (Order order : accepted) {
+            userIds.add(order.getUser().getId());
+        }
+        // Deferred by the transaction-aware cache until this chunk commits
+        userIds.forEach(this::evictUserOrders);
+        if (!accepted.isEmpty()) {
+            logService.logAction(LogService.LogType.INFO, "Batch created " + accepted.size() + " orders (IDs "
+                    + accepted.get(0).getId() + " to " + accepted.get(accepted.size() - 1).getId() + ")");
+        }
+        return results;
+    }
+
+    private List<String> validate(Order order, Map<Long, Product> products) {
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<Order> violation : validator.validate(order)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        if (order.getProduct() == null || order.getProduct().getId() == null) {
+            errors.add("product: Product is required");
+        } else if (!products.containsKey(order.getProduct().getId())) {
+            errors.add("product: Product not found with id: " + order.getProduct().getId());
+        }
+        return errors;
+    }
+
+    private Product findProduct(Order order) {
+        if (order.getProduct() == null || order.getProduct().getId() == null) {
+            throw new InvalidRequestException("Product is required");
+        }
+        Long productId = order.getProduct().getId();
+        return productRepository.findById(productId)
+                .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
     }
 
+    /**
+     * Update an order with one ownership-checked select, which also loads its user and product, and one UPDATE.
+     * The product is only looked up when it changes, to validate it and take its current price.
+     * @param id The order id
+     * @param changes The new order date, product, quantity and comments
+     * @param username The caller
+     * @param admin Whether the caller may update any order
+     * @return The updated order, or empty if it does not exist or belongs to someone else
+     */
     @Override
-    public void deleteOrder(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new EntityNotFoundException("Order not found with id: " + id);
+    @Transactional
+    public Optional<Order> updateOrder(Long id, Order changes, String username, boolean admin) {
+        if (changes.getProduct() == null || changes.getProduct().getId() == null) {
+            throw new InvalidRequestException("Product is required");
+        }
+        Optional<Order> existing = getOrder(id, username, admin);
+        if (!existing.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(applyChanges(existing.get(), changes));
+    }
+
+    // Copy the editable fields onto the managed order; its owner, creation time and tracking id never change
+    private Order applyChanges(Order order, Order changes) {
+        SalesRollupService.Sale before = SalesRollupService.Sale.of(order);
+
+        Long productId = changes.getProduct().getId();
+        if (!productId.equals(order.getProduct().getId())) {
+            Product product = productRepository.findById(productId)
+                    .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + productId));
+            order.setProduct(product);
+            order.setUnitPrice(product.getPrice());
+        }
+        order.setOrderDate(changes.getOrderDate());
+        order.setQuantity(changes.getQuantity());
+        order.setComments(changes.getComments());
+        // One UPDATE by dirty checking; flushed now so @PreUpdate sets updatedAt before the order is returned
+        orderRepository.flush();
+
+        salesRollupService.changed(before, SalesRollupService.Sale.of(order));
+        evictUserOrders(order.getUser().getId());
+        logService.logAction(LogService.LogType.INFO, "Order updated with ID: " + order.getId());
+        return order;
+    }
+
+    /**
+     * Delete an order with one ownership-checked select and one DELETE statement
+     * @param id The order id
+     * @param username The caller
+     * @param admin Whether the caller may delete any order
+     * @return false if the order does not exist or belongs to someone else
+     */
+    @Override
+    @Transactional
+    public boolean deleteOrder(Long id, String username, boolean admin) {
+        Optional<OrderSummary> existing = getOrderSummary(id, username, admin);
+        if (!existing.isPresent() || orderRepository.deleteByIdAndUserId(id, existing.get().getUserId()) == 0) {
+            return false;
         }
-        orderRepository.deleteById(id);
+        salesRollupService.removed(SalesRollupService.Sale.of(existing.get()));
+        evictUserOrders(existing.get().getUserId());
         logService.logAction(LogService.LogType.INFO, "Order deleted with ID: " + id);
+        return true;
+    }
+
+    @Override
+    @Transactional
+    public void deleteOrder(Long id) {
+        OrderSummary existing = orderRepository.findSummaryById(id)
+                .orElseThrow(() -> new EntityNotFoundException("Order not found with id: " + id));
+        orderRepository.deleteByIdAndUserId(id, existing.getUserId());
+        salesRollupService.removed(SalesRollupService.Sale.of(existing));
+        evictUserOrders(existing.getUserId());
+        logService.logAction(LogService.LogType.INFO, "Order deleted with ID: " + id);
+    }
+
+    private void evictUserOrders(Long userId) {
+        if (userOrdersCache != null && userId != null) {
+            userOrdersCache.evict(userId);
+        }
+    }
+
+    // Runs inside the repricing transaction; the transaction-aware cache applies the clear once it commits
+    @EventListener
+    public void onProductChange(ProductChangeEvent event) {
+        switch (event.getType()) {
+            case UPDATED:
+            case IMPORTED:
+            case BULK_UPDATED:
+                if (userOrdersCache != null) {
+                    userOrdersCache.clear();
+                }
+                break;
+            default:
+                // New products have no orders, and products with orders cannot be deleted
+        }
     }
 }
@@ -0,0 +1,173 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Product prices sorted into parallel primitive arrays, built once per catalog snapshot.
+ * <p>
+ * Entry i pairs {@code prices[i]} with {@code ids[i]} and {@code products[i]}, ordered by price then id. A price
+ * range is located with two binary searches and read as a contiguous slice, so a range, a page of it or the N
+ * cheapest or most expensive products cost O(log n + page size) whatever the catalog size. A single product change
+ * copies the arrays with one entry moved, sharing the product instances.
+ */
+final class PriceIndex {
+
+    private final double[] prices;
+    private final long[] ids;
+    private final Product[] products;
+
+    PriceIndex(List<Product> products) {
+        List<Product> sorted = new ArrayList<>(products.size());
+        for (Product product : products) {
+            if (product.getPrice() != null) {
+                sorted.add(product);
+            }
+        }
+        sorted.sort(Comparator.comparingDouble(Product::getPrice).thenComparingLong(Product::getId));
+        this.prices = new double[sorted.size()];
+        this.ids = new long[sorted.size()];
+        this.products = sorted.toArray(new Product[0]);
+        for (int i = 0; i < sorted.size(); i++) {
+            prices[i] = sorted.get(i).getPrice();
+            ids[i] = sorted.get(i).getId();
+        }
+    }
+
+    private PriceIndex(double[] prices, long[] ids, Product[] products) {
+        this.prices = prices;
+        this.ids = ids;
+        this.products = products;
+    }
+
+    /**
+     * Copy this index with one product replaced, added or removed
+     * @param before The product as this index holds it, null when it is new
+     * @param after The product to index instead, null when it was deleted
+     * @return A new index; this one is left unchanged
+     */
+    PriceIndex with(Product before, Product after) {
+        double[] nextPrices = prices;
+        long[] nextIds = ids;
+        Product[] nextProducts = products;
+        if (before != null && before.getPrice() != null) {
+            int at = position(before.getPrice(), before.getId());
+            if (at < prices.length && ids[at] == before.getId()) {
+                nextPrices = new double[prices.length - 1];
+                nextIds = new long[ids.length - 1];
+                nextProducts = new Product[products.length - 1];
+                remove(prices, nextPrices, at, prices.length);
+                remove(ids, nextIds, at, prices.length);
+                remove(products, nextProducts, at, prices.length);
+            }
+        }
+        if (after != null && after.getPrice() != null) {
+            PriceIndex removed = new PriceIndex(nextPrices, nextIds, nextProducts);
+            int at = removed.position(after.getPrice(), after.getId());
+            nextPrices = new double[removed.prices.length + 1];
+            nextIds = new long[removed.ids.length + 1];
+            nextProducts = new Product[removed.products.length + 1];
+            insert(removed.prices, nextPrices, at, removed.prices.length);
+            insert(removed.ids, nextIds, at, removed.prices.length);
+            insert(removed.products, nextProducts, at, removed.prices.length);
+            nextPrices[at] = after.getPrice();
+            nextIds[at] = after.getId();
+            nextProducts[at] = after;
+        }
+        return new PriceIndex(nextPrices, nextIds, nextProducts);
+    }
+
+    /**
+     * Count the products priced within a range
+     * @param min Lowest price, inclusive
+     * @param max Highest price, inclusive
+     */
+    int count(double min, double max) {
+        return Math.max(0, upperBound(max) - lowerBound(min));
+    }
+
+    /**
+     * Read a page of the products priced within a range
+     * @param min Lowest price, inclusive
+     * @param max Highest price, inclusive
+     * @param descending Whether the most expensive products come first
+     * @param offset Number of matching products to skip
+     * @param limit Maximum number of products returned
+     * @return Matching products ordered by price, then id
+     */
+    List<Product> range(double min, double max, boolean descending, int offset, int limit) {
+        int from = lowerBound(min);
+        int to = upperBound(max);
+        int size = Math.min(limit, to - from - offset);
+        if (size <= 0) {
+            return Collections.emptyList();
+        }
+        List<Product> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int at = descending ? to - 1 - offset - i : from + offset + i;
+            result.add(products[at]);
+        }
+        return result;
+    }
+
+    // First entry at or after the given price and id
+    private int position(double price, long id) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price || (prices[mid] == price && ids[mid] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First entry priced at or above the value
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // First entry priced above the value
+    private int upperBound(double value) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Copy an array of the given length without the entry at a position
+    private static void remove(Object from, Object to, int at, int length) {
+        System.arraycopy(from, 0, to, 0, at);
+        System.arraycopy(from, at + 1, to, at, length - at - 1);
+    }
+
+    // Copy an array of the given length leaving the entry at a position free
+    private static void insert(Object from, Object to, int at, int length) {
+        System.arraycopy(from, 0, to, 0, at);
+        System.arraycopy(from, at, to, at + 1, length - at);
+    }
+}
@@ -0,0 +1,381 @@
+package com.example.crud.service;
+
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.model.Product;
+import com.example.crud.model.ProductSales;
+import com.example.crud.repository.ProductRepository;
+import com.example.crud.repository.ProductSalesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory, copy-on-write snapshot of every product.
+ * <p>
+ * Readers get the current immutable snapshot without locking or touching the database. A committed change to one
+ * product reloads that product alone and swaps in a copy of the snapshot patched with it: the sorted arrays are
+ * copied, the product instances and most trigram posting lists are shared. Bulk changes reload every product.
+ * Changes are applied one at a time, each reading the product after its commit, so the last one applied reflects
+ * the last commit. The product instances are shared by every reader and must not be modified. Suggestions, ranked
+ * by popularity, are rebuilt in the background after products are added, renamed or deleted, and every
+ * products.suggest.popularity-refresh-ms since popularity moves with every order.
+ * <p>
+ * Change events only reach the instance that made the change, so every products.catalog.refresh-ms the whole
+ * catalog is reloaded: changes made on other instances show up, and their catalog ETags agree again, within
+ * that delay.
+ */
+@Component
+public class ProductCatalog {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCatalog.class);
+
+    private final ProductRepository productRepository;
+    private final ProductSalesRepository productSalesRepository;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+
+    private final Executor suggestRebuilder;
+    private final AtomicBoolean suggestRebuildPending = new AtomicBoolean();
+    // Serializes suggestion rebuilds, so an older one never replaces a newer one
+    private final Object suggestLock = new Object();
+
+    @Autowired
+    public ProductCatalog(ProductRepository productRepository, ProductSalesRepository productSalesRepository) {
+        this(productRepository, productSalesRepository, Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-suggest-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    ProductCatalog(ProductRepository productRepository, ProductSalesRepository productSalesRepository,
+                   Executor suggestRebuilder) {
+        this.productRepository = productRepository;
+        this.productSalesRepository = productSalesRepository;
+        this.suggestRebuilder = suggestRebuilder;
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (suggestRebuilder instanceof ExecutorService) {
+            ((ExecutorService) suggestRebuilder).shutdownNow();
+        }
+    }
+
+    public List<Product> getAll() {
+        return current().all;
+    }
+
+    public Optional<Product> get(Long id) {
+        return Optional.ofNullable(id == null ? null : current().find(id));
+    }
+
+    public boolean contains(Long id) {
+        return id != null && current().find(id) != null;
+    }
+
+    /**
+     * Content hash of every product, maintained with the snapshot; equal hashes mean identical product lists
+     */
+    public long getContentHash() {
+        return current().contentHash;
+    }
+
+    /**
+     * Substring and fuzzy search over product names and descriptions
+     * @param query Free text
+     * @param limit Maximum number of products returned
+     * @return Matching products, most relevant first
+     */
+    public List<Product> search(String query, int limit) {
+        return current().textIndex.search(query, limit);
+    }
+
+    /**
+     * Read a page of the products priced within a range from the sorted price index
+     * @param min Lowest price, inclusive
+     * @param max Highest price, inclusive
+     * @param descending Whether the most expensive products come first
+     * @param offset Number of matching products to skip
+     * @param limit Maximum number of products returned
+     * @return Matching products ordered by price, then id
+     */
+    public List<Product> findByPrice(double min, double max, boolean descending, int offset, int limit) {
+        return current().priceIndex.range(min, max, descending, offset, limit);
+    }
+
+    public int countByPrice(double min, double max) {
+        return current().priceIndex.count(min, max);
+    }
+
+    /**
+     * Autocomplete product names from the prefix trie
+     * @param prefix Start of the name or of one of its words
+     * @param limit Maximum number of products returned
+     * @return Matching products, most ordered first
+     */
+    public List<Product> suggest(String prefix, int limit) {
+        Snapshot current = current();
+        return current.suggestIndex.suggest(prefix, limit, current::find);
+    }
+
+    // Also picks up the products seeded at startup
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    // Runs after the change committed, before other listeners read the catalog; a new persistence context makes
+    // sure no stale request-scoped entity is reused
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onProductChange(ProductChangeEvent event) {
+        if (event.getProductId() == null) {
+            // Imports and bulk changes touch any number of products
+            refresh();
+        } else {
+            update(event.getProductId());
+        }
+    }
+
+    // Picks up changes committed by other instances, whose change events never reach this one
+    @Scheduled(initialDelayString = "${products.catalog.refresh-ms:60000}",
+               fixedDelayString = "${products.catalog.refresh-ms:60000}")
+    public void refreshPeriodically() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the product catalog, keeping the current snapshot", e);
+        }
+    }
+
+    /**
+     * Reload every product and swap in the new snapshot
+     */
+    public synchronized void refresh() {
+        Snapshot next = new Snapshot(productRepository.findAll(Sort.by("id")), loadPopularity());
+        snapshot.set(next);
+        logger.debug("Product catalog refreshed with {} products", next.all.size());
+    }
+
+    /**
+     * Reload one product and swap in a copy of the snapshot holding its current state
+     * @param id The product id; the product is removed when it no longer exists
+     */
+    public synchronized void update(Long id) {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            refresh();
+            return;
+        }
+        Product before = current.find(id);
+        Product after = productRepository.findById(id).orElse(null);
+        snapshot.set(current.with(id, after));
+        if (before == null || after == null || !Objects.equals(before.getName(), after.getName())) {
+            scheduleSuggestRebuild();
+        }
+    }
+
+    /**
+     * Reload order counts and rebuild the suggestion index from the current products; the products are kept as
+     * they are, and lookups keep using the previous index until the new one is ready
+     */
+    @Scheduled(initialDelayString = "${products.suggest.popularity-refresh-ms:300000}",
+               fixedDelayString = "${products.suggest.popularity-refresh-ms:300000}")
+    public void refreshPopularity() {
+        synchronized (suggestLock) {
+            suggestRebuildPending.set(false);
+            Snapshot base = snapshot.get();
+            if (base == null) {
+                return;
+            }
+            SuggestIndex index = new SuggestIndex(base.all, loadPopularity());
+            // Products changed meanwhile are resolved by id; ones added meanwhile have scheduled another rebuild
+            synchronized (this) {
+                snapshot.set(snapshot.get().withSuggestIndex(index));
+            }
+        }
+    }
+
+    // Changes arriving while a rebuild is queued are covered by it
+    private void scheduleSuggestRebuild() {
+        if (suggestRebuildPending.compareAndSet(false, true)) {
+            suggestRebuilder.execute(() -> {
+                try {
+                    refreshPopularity();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not rebuild product suggestions", e);
+                }
+            });
+        }
+    }
+
+    private Map<Long, Long> loadPopularity() {
+        Map<Long, Long> popularity = new HashMap<>();
+        for (ProductSales sales : productSalesRepository.findAll()) {
+            popularity.put(sales.getProductId(), sales.getOrderCount());
+        }
+        return popularity;
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot.get();
+        if (current == null) {
+            refresh();
+            current = snapshot.get();
+        }
+        return current;
+    }
+
+    private static final class Snapshot {
+
+        // Empty trigram slots left by deletions are reclaimed once they outnumber the products by this much
+        private static final int MAX_EMPTY_SLOTS = 1024;
+
+        // Products sorted by id; slots[i] is the trigram index slot of products[i]
+        private final long[] ids;
+        private final Product[] products;
+        private final int[] slots;
+        private final List<Product> all;
+        private final TrigramIndex textIndex;
+        private final PriceIndex priceIndex;
+        private final SuggestIndex suggestIndex;
+        // Sum of the mixed hashes of the products, so one product can be swapped out of it
+        private final long productsHash;
+        private final long contentHash;
+
+        Snapshot(List<Product> products, Map<Long, Long> popularity) {
+            this.products = products.toArray(new Product[0]);
+            this.ids = new long[this.products.length];
+            this.slots = new int[this.products.length];
+            long hash = 0;
+            for (int i = 0; i < this.products.length; i++) {
+                ids[i] = this.products[i].getId();
+                slots[i] = i;
+                hash += mix(ContentHash.of(this.products[i]));
+            }
+            this.all = Collections.unmodifiableList(Arrays.asList(this.products));
+            this.textIndex = new TrigramIndex(this.all);
+            this.priceIndex = new PriceIndex(this.all);
+            this.suggestIndex = new SuggestIndex(this.all, popularity);
+            this.productsHash = hash;
+            this.contentHash = new ContentHash().add(this.products.length).add(hash).get();
+        }
+
+        private Snapshot(long[] ids, Product[] products, int[] slots, TrigramIndex textIndex, PriceIndex priceIndex,
+                         SuggestIndex suggestIndex, long productsHash) {
+            this.ids = ids;
+            this.products = products;
+            this.slots = slots;
+            this.all = Collections.unmodifiableList(Arrays.asList(products));
+            this.textIndex = textIndex;
+            this.priceIndex = priceIndex;
+            this.suggestIndex = suggestIndex;
+            this.productsHash = productsHash;
+            this.contentHash = new ContentHash().add(products.length).add(productsHash).get();
+        }
+
+        Product find(long id) {
+            int at = Arrays.binarySearch(ids, id);
+            return at < 0 ? null : products[at];
+        }
+
+        Snapshot withSuggestIndex(SuggestIndex index) {
+            return new Snapshot(ids, products, slots, textIndex, priceIndex, index, productsHash);
+        }
+
+        // Copy with one product replaced, added or, when it is null, removed
+        Snapshot with(long id, Product product) {
+            int at = Arrays.binarySearch(ids, id);
+            Product before = at < 0 ? null : products[at];
+            if (before == null && product == null) {
+                return this;
+            }
+            long[] nextIds = ids;
+            Product[] nextProducts;
+            int[] nextSlots = slots;
+            TrigramIndex nextText;
+            if (before != null && product != null) {
+                nextProducts = products.clone();
+                nextProducts[at] = product;
+                nextText = textIndex.with(slots[at], product);
+            } else if (before != null) {
+                nextIds = new long[ids.length - 1];
+                nextProducts = new Product[products.length - 1];
+                nextSlots = new int[slots.length - 1];
+                remove(ids, nextIds, at, ids.length);
+                remove(products, nextProducts, at, ids.length);
+                remove(slots, nextSlots, at, ids.length);
+                nextText = textIndex.with(slots[at], null);
+            } else {
+                at = -at - 1;
+                nextIds = new long[ids.length + 1];
+                nextProducts = new Product[products.length + 1];
+                nextSlots = new int[slots.length + 1];
+                insert(ids, nextIds, at, ids.length);
+                insert(products, nextProducts, at, ids.length);
+                insert(slots, nextSlots, at, ids.length);
+                nextIds[at] = id;
+                nextProducts[at] = product;
+                nextSlots[at] = textIndex.slots();
+                nextText = textIndex.with(textIndex.slots(), product);
+            }
+            if (nextText.slots() > 2 * nextProducts.length + MAX_EMPTY_SLOTS) {
+                nextText = new TrigramIndex(Arrays.asList(nextProducts));
+                nextSlots = new int[nextProducts.length];
+                for (int i = 0; i < nextSlots.length; i++) {
+                    nextSlots[i] = i;
+                }
+            }
+            long hash = productsHash - (before == null ? 0 : mix(ContentHash.of(before)))
+                    + (product == null ? 0 : mix(ContentHash.of(product)));
+            return new Snapshot(nextIds, nextProducts, nextSlots, nextText, priceIndex.with(before, product),
+                    suggestIndex, hash);
+        }
+
+        // Spreads FNV-1a output over all 64 bits before the hashes are summed (MurmurHash3 finalizer)
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            return hash ^ (hash >>> 33);
+        }
+
+        // Copy an array of the given length without the entry at a position
+        private static void remove(Object from, Object to, int at, int length) {
+            System.arraycopy(from, 0, to, 0, at);
+            System.arraycopy(from, at + 1, to, at, length - at - 1);
+        }
+
+        // Copy an array of the given length leaving the entry at a position free
+        private static void insert(Object from, Object to, int at, int length) {
+            System.arraycopy(from, 0, to, 0, at);
+            System.arraycopy(from, at, to, at + 1, length - at);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.ProductChange;
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server-sent event feed of committed product changes.
+ * <p>
+ * Every change gets the next version and is kept in a ring of the last products.changes.replay-size changes, so
+ * a client reconnecting with Last-Event-ID receives only what it missed. A new client, or one whose last version
+ * is no longer kept, first receives a {@value #RESET} event with the current version: it should reload
+ * GET /api/products and apply the {@value #CHANGE} events that follow. Bulk changes are sent as resets too.
+ * Versions start from the startup time, so they keep increasing across restarts and a version from before a
+ * restart is never mistaken for a kept one. Only changes committed on this instance are seen.
+ * <p>
+ * Events are written by a single sender thread, in version order, so a slow client never holds up the
+ * transaction that made the change.
+ */
+@Service
+public class ProductChangeFeed {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeFeed.class);
+
+    static final String CHANGE = "change";
+    static final String RESET = "reset";
+
+    private final ProductCatalog productCatalog;
+    private final Object lock = new Object();
+
+    @Value("${products.changes.replay-size:1024}")
+    private int replaySize;
+
+    // How long a stream stays open; EventSource clients reconnect with Last-Event-ID when it ends
+    @Value("${products.changes.timeout-ms:1800000}")
+    private long timeout;
+
+    // Guarded by lock; subscribers is replaced, never modified, so a queued broadcast keeps its recipients
+    private ProductChange[] ring;
+    private long firstVersion;
+    private long version;
+    private List<SseEmitter> subscribers = Collections.emptyList();
+
+    private ExecutorService sender;
+
+    @Autowired
+    public ProductChangeFeed(ProductCatalog productCatalog) {
+        this.productCatalog = productCatalog;
+    }
+
+    @PostConstruct
+    public void start() {
+        ring = new ProductChange[Math.max(1, replaySize)];
+        version = System.currentTimeMillis() * 1000;
+        firstVersion = version + 1;
+        sender = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        sender.shutdownNow();
+        synchronized (lock) {
+            subscribers.forEach(SseEmitter::complete);
+            subscribers = Collections.emptyList();
+        }
+    }
+
+    /**
+     * Open a stream of product changes
+     * @param lastEventId Version of the last change the client received, from the Last-Event-ID header; may be null
+     * @return The stream, first replaying the missed changes or a reset
+     */
+    public SseEmitter subscribe(String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout);
+        emitter.onCompletion(() -> unsubscribe(emitter));
+        emitter.onTimeout(() -> unsubscribe(emitter));
+        emitter.onError(e -> unsubscribe(emitter));
+        synchronized (lock) {
+            List<ProductChange> missed = replaySince(lastEventId);
+            List<ProductChange> first = missed != null ? missed
+                    : Collections.singletonList(new ProductChange(version, null, null, null));
+            List<SseEmitter> next = new ArrayList<>(subscribers);
+            next.add(emitter);
+            subscribers = next;
+            // Queued while holding the lock, so no later change can be sent to this client before them
+            sender.execute(() -> first.forEach(change -> send(emitter, change)));
+        }
+        return emitter;
+    }
+
+    // Runs after the catalog picked up the change, so the product sent is the committed one
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChange(ProductChangeEvent event) {
+        Product product = null;
+        if (event.getType() == ProductChangeEvent.Type.CREATED || event.getType() == ProductChangeEvent.Type.UPDATED) {
+            product = productCatalog.get(event.getProductId()).orElse(null);
+        }
+        synchronized (lock) {
+            ProductChange change = new ProductChange(++version, event.getType(), event.getProductId(), product);
+            ring[(int) (change.getVersion() % ring.length)] = change;
+            List<SseEmitter> recipients = subscribers;
+            if (!recipients.isEmpty()) {
+                sender.execute(() -> recipients.forEach(emitter -> send(emitter, change)));
+            }
+        }
+    }
+
+    // Keeps idle connections open through proxies and finds clients that went away
+    @Scheduled(fixedDelayString = "${products.changes.heartbeat-ms:15000}")
+    public void heartbeat() {
+        List<SseEmitter> recipients;
+        synchronized (lock) {
+            recipients = subscribers;
+        }
+        if (!recipients.isEmpty()) {
+            sender.execute(() -> recipients.forEach(emitter -> send(emitter, SseEmitter.event().comment("heartbeat"))));
+        }
+    }
+
+    /**
+     * Changes made after a version, oldest first
+     * @param lastEventId The version, as sent in the Last-Event-ID header
+     * @return The changes, or null when the version is missing, unknown or older than the ring
+     */
+    List<ProductChange> replaySince(String lastEventId) {
+        synchronized (lock) {
+            long last;
+            try {
+                last = Long.parseLong(lastEventId == null ? "" : lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            long oldest = Math.max(firstVersion, version - ring.length + 1);
+            if (last < oldest - 1 || last > version) {
+                return null;
+            }
+            List<ProductChange> missed = new ArrayList<>((int) (version - last));
+            for (long v = last + 1; v <= version; v++) {
+                missed.add(ring[(int) (v % ring.length)]);
+            }
+            return missed;
+        }
+    }
+
+    int getSubscriberCount() {
+        synchronized (lock) {
+            return subscribers.size();
+        }
+    }
+
+    private void send(SseEmitter emitter, ProductChange change) {
+        boolean reset = change.getType() == null || change.getProductId() == null;
+        send(emitter, SseEmitter.event()
+                .id(Long.toString(change.getVersion()))
+                .name(reset ? RESET : CHANGE)
+                .data(change, MediaType.APPLICATION_JSON));
+    }
+
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            // The client went away or the stream timed out
+            logger.debug("Dropping product change subscriber: {}", e.getMessage());
+            unsubscribe(emitter);
+        }
+    }
+
+    private void unsubscribe(SseEmitter emitter) {
+        synchronized (lock) {
+            if (subscribers.contains(emitter)) {
+                List<SseEmitter> next = new ArrayList<>(subscribers);
+                next.remove(emitter);
+                subscribers = next;
+            }
+        }
+    }
+}
@@ -0,0 +1,418 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.ImportStatus;
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk product import from CSV or NDJSON files.
+ * <p>
+ * The upload is spooled to a temporary file and the import runs in the background, one file at a time. Rows are
+ * read in chunks; chunks are parsed and validated in parallel by a worker pool while the import thread upserts the
+ * previous ones in order, one transaction per chunk, matching existing products by name. At most two chunks per
+ * worker are in memory at once, whatever the size of the file. Names repeated within a chunk keep their last row;
+ * a name repeated in a later chunk updates the product created by the earlier one. The product catalog is
+ * refreshed once, when the import ends.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportService.class);
+
+    private final ProductService productService;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Cache<String, ImportStatus> jobs = Caffeine.newBuilder()
+            .maximumSize(1000)
+            .expireAfterWrite(Duration.ofHours(24))
+            .build();
+
+    @Value("${products.import.chunk-size:1000}")
+    private int chunkSize;
+
+    // Parsing and validation threads; 0 uses one per available processor
+    @Value("${products.import.parallelism:0}")
+    private int parallelism;
+
+    @Value("${products.import.max-errors:1000}")
+    private int maxErrors;
+
+    private ExecutorService runner;
+    private ExecutorService workers;
+
+    @Autowired
+    public ProductImportService(ProductService productService, Validator validator, ObjectMapper objectMapper,
+                                ApplicationEventPublisher eventPublisher) {
+        this.productService = productService;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        runner = Executors.newSingleThreadExecutor(daemon("product-import"));
+        workers = Executors.newFixedThreadPool(parallelism, daemon("product-import-worker"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        runner.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Spool an uploaded file and queue its import
+     * @param format CSV with a header row naming the name, description and price columns, or one JSON product per line
+     * @param body The file content, read to the end before returning
+     * @return The QUEUED status holding the job id
+     */
+    public ImportStatus submit(DataFormat format, InputStream body) throws IOException {
+        Path file = Files.createTempFile("product-import-", "." + format.getExtension());
+        try {
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        ImportStatus status = new ImportStatus(UUID.randomUUID().toString(), format.getExtension(), maxErrors);
+        jobs.put(status.getJobId(), status);
+        runner.execute(() -> run(status, format, file));
+        return status;
+    }
+
+    public Optional<ImportStatus> getStatus(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId));
+    }
+
+    // Import a file synchronously; package-private so tests can run it without the executors
+    void run(ImportStatus status, DataFormat format, Path file) {
+        status.start();
+        Deque<Future<List<Row>>> inFlight = new ArrayDeque<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            RowReader rows = format == DataFormat.CSV
+                    ? new CsvRowReader(reader) : new NdjsonRowReader(reader);
+            List<Row> chunk;
+            while ((chunk = rows.next(chunkSize)) != null) {
+                status.read(chunk.size());
+                List<Row> parsing = chunk;
+                inFlight.add(workers.submit(() -> parse(parsing)));
+                if (inFlight.size() >= 2 * parallelism) {
+                    write(status, inFlight.poll().get());
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                write(status, inFlight.poll().get());
+            }
+            status.complete();
+            logger.info("Product import {} completed: {} rows, {} created, {} updated, {} invalid, {} failed",
+                    status.getJobId(), status.getRowsRead(), status.getCreated(), status.getUpdated(),
+                    status.getInvalid(), status.getFailed());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            status.fail("Import interrupted");
+        } catch (ExecutionException e) {
+            logger.error("Product import {} failed", status.getJobId(), e.getCause());
+            status.fail(e.getCause().getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Product import {} failed", status.getJobId(), e);
+            status.fail(e.getMessage());
+        } finally {
+            inFlight.forEach(future -> future.cancel(true));
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Could not delete import file {}", file, e);
+            }
+            if (status.getCreated() > 0 || status.getUpdated() > 0) {
+                eventPublisher.publishEvent(new ProductChangeEvent(null, ProductChangeEvent.Type.IMPORTED));
+            }
+        }
+    }
+
+    private List<Row> parse(List<Row> rows) {
+        for (Row row : rows) {
+            try {
+                row.product = row.fields != null ? fromCsv(row.fields, row.columns) : fromJson(row.line);
+            } catch (JsonProcessingException e) {
+                row.errors = Collections.singletonList("Malformed product: " + e.getOriginalMessage());
+                continue;
+            } catch (IllegalArgumentException e) {
+                row.errors = Collections.singletonList(e.getMessage());
+                continue;
+            }
+            if (row.product.getName() != null) {
+                row.product.setName(row.product.getName().trim());
+            }
+            List<String> errors = new ArrayList<>();
+            for (ConstraintViolation<Product> violation : validator.validate(row.product)) {
+                errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+            }
+            row.errors = errors;
+        }
+        return rows;
+    }
+
+    private Product fromJson(String line) throws JsonProcessingException {
+        Product product = objectMapper.readValue(line, Product.class);
+        product.setId(null);
+        return product;
+    }
+
+    private static Product fromCsv(String[] fields, Map<String, Integer> columns) {
+        Product product = new Product();
+        product.setName(field(fields, columns, "name"));
+        product.setDescription(field(fields, columns, "description"));
+        String price = field(fields, columns, "price");
+        if (price != null && !price.trim().isEmpty()) {
+            try {
+                product.setPrice(Double.valueOf(price.trim()));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("price: Not a number: " + price);
+            }
+        }
+        return product;
+    }
+
+    private static String field(String[] fields, Map<String, Integer> columns, String column) {
+        Integer position = columns.get(column);
+        return position == null || position >= fields.length ? null : fields[position];
+    }
+
+    private void write(ImportStatus status, List<Row> rows) {
+        // Last row wins for names repeated within the chunk
+        Map<String, Row> byName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Row row : rows) {
+            if (!row.errors.isEmpty()) {
+                status.record(BatchItemResult.invalid(row.index, row.errors));
+            } else if (byName.put(row.product.getName(), row) != null) {
+                status.duplicate();
+            }
+        }
+        if (byName.isEmpty()) {
+            return;
+        }
+        Map<Integer, Product> products = new LinkedHashMap<>();
+        byName.values().forEach(row -> products.put(row.index, row.product));
+        List<BatchItemResult> results;
+        try {
+            results = productService.upsertProducts(products);
+        } catch (RuntimeException e) {
+            results = new ArrayList<>(products.size());
+            for (Integer index : products.keySet()) {
+                results.add(BatchItemResult.failed(index, "Chunk rolled back: " + e.getMessage()));
+            }
+        }
+        results.forEach(status::record);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    // One record of the file; index is its zero-based position, not counting the CSV header or blank lines
+    private static final class Row {
+
+        final int index;
+        final String[] fields;
+        final Map<String, Integer> columns;
+        final String line;
+        Product product;
+        List<String> errors;
+
+        Row(int index, String[] fields, Map<String, Integer> columns, String line) {
+            this.index = index;
+            this.fields = fields;
+            this.columns = columns;
+            this.line = line;
+        }
+    }
+
+    private interface RowReader {
+
+        // The next rows, at most size of them, or null at the end of the file
+        List<Row> next(int size) throws IOException;
+    }
+
+    private static final class NdjsonRowReader implements RowReader {
+
+        private final BufferedReader reader;
+        private int index;
+
+        NdjsonRowReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public List<Row> next(int size) throws IOException {
+            List<Row> rows = new ArrayList<>(size);
+            String line;
+            while (rows.size() < size && (line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty()) {
+                    rows.add(new Row(index++, null, null, line));
+                }
+            }
+            return rows.isEmpty() ? null : rows;
+        }
+    }
+
+    private static final class CsvRowReader implements RowReader {
+
+        private final CsvParser parser;
+        private Map<String, Integer> columns;
+        private int index;
+
+        CsvRowReader(Reader reader) {
+            this.parser = new CsvParser(reader);
+        }
+
+        @Override
+        public List<Row> next(int size) throws IOException {
+            if (columns == null) {
+                columns = header(parser.next());
+            }
+            List<Row> rows = new ArrayList<>(size);
+            String[] fields;
+            while (rows.size() < size && (fields = parser.next()) != null) {
+                if (fields.length > 1 || !fields[0].trim().isEmpty()) {
+                    rows.add(new Row(index++, fields, columns, null));
+                }
+            }
+            return rows.isEmpty() ? null : rows;
+        }
+
+        private static Map<String, Integer> header(String[] fields) {
+            if (fields == null) {
+                throw new IllegalArgumentException("The CSV file is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < fields.length; i++) {
+                // Drop the byte order mark some spreadsheet tools write
+                String name = (i == 0 ? fields[i].replace("\uFEFF", "") : fields[i]).trim().toLowerCase(Locale.ROOT);
+                columns.putIfAbsent(name, i);
+            }
+            if (!columns.containsKey("name") || !columns.containsKey("price")) {
+                throw new IllegalArgumentException("The CSV header must name the 'name' and 'price' columns");
+            }
+            return columns;
+        }
+    }
+
+    // RFC 4180 records: quoted fields may hold separators, line breaks and doubled quotes
+    static final class CsvParser {
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder field = new StringBuilder();
+        private int position;
+        private int limit;
+
+        CsvParser(Reader reader) {
+            this.reader = reader;
+        }
+
+        // The fields of the next record, or null at the end of the input
+        String[] next() throws IOException {
+            int c = read();
+            if (c == -1) {
+                return null;
+            }
+            List<String> fields = new ArrayList<>();
+            field.setLength(0);
+            boolean quoted = false;
+            while (true) {
+                if (quoted) {
+                    if (c == -1) {
+                        throw new IOException("Unterminated quoted field in record " + fields);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            quoted = false;
+                            continue;
+                        }
+                    }
+                    field.append((char) c);
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else if (c == '\n' || c == -1) {
+                    break;
+                } else if (c != '\r') {
+                    field.append((char) c);
+                }
+                c = read();
+            }
+            fields.add(field.toString());
+            return fields.toArray(new String[0]);
+        }
+
+        private int read() throws IOException {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++];
+        }
+    }
+}
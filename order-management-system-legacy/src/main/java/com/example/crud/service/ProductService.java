@@ -1,24 +1,46 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.BatchItemResult;
 import com.example.crud.model.Product;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface ProductService {
     List<Product> getAllProducts();
     
+    long getCatalogHash();
+    
     Optional<Product> getProductById(Long id);
     
+    List<BatchGetItem<Product>> getProductsByIds(List<Long> ids);
+    
     Product createProduct(Product product);
     
     Product updateProduct(Long id, Product product);
     
     void deleteProduct(Long id);
     
-    List<Product> findProductsByName(String name);
+    List<BatchItemResult> upsertProducts(Map<Integer, Product> products);
+    
+    int adjustPrices(Collection<Long> ids, double percent, double amount);
+    
+    int adjustPricesBetween(double min, double max, double percent, double amount);
+    
+    int deleteProducts(Collection<Long> ids);
+    
+    List<Product> searchProducts(String query, int limit);
+    
+    List<Product> suggestProducts(String prefix, int limit);
     
     List<Product> findProductsByPriceLessThan(Double price);
     
     List<Product> findProductsByPriceGreaterThan(Double price);
+    
+    List<Product> findProductsByPriceBetween(Double min, Double max, boolean descending, int offset, int limit);
+    
+    int countProductsByPriceBetween(Double min, Double max);
 }
@@ -1,40 +1,88 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.exception.InvalidRequestException;
 import com.example.crud.model.Product;
 import com.example.crud.repository.ProductRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductCatalog productCatalog;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, ProductCatalog productCatalog,
+                              ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.productCatalog = productCatalog;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * Get every product from the in-memory catalog
+     * @return An unmodifiable list shared with other callers, ordered by id
+     */
     @Override
     public List<Product> getAllProducts() {
-        return productRepository.findAll();
+        return productCatalog.getAll();
+    }
+
+    /**
+     * Get the content hash of the catalog, which changes whenever any product does
+     * @return A hash of every product, computed once per catalog refresh
+     */
+    @Override
+    public long getCatalogHash() {
+        return productCatalog.getContentHash();
     }
 
     @Override
     public Optional<Product> getProductById(Long id) {
-        return productRepository.findById(id);
+        return productCatalog.get(id);
     }
 
+    /**
+     * Get several products from the in-memory catalog
+     * @param ids The product ids; repeated ids are answered at each position
+     * @return One result per requested id, in request order
+     */
     @Override
+    public List<BatchGetItem<Product>> getProductsByIds(List<Long> ids) {
+        List<BatchGetItem<Product>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            results.add(productCatalog.get(id)
+                    .map(product -> BatchGetItem.found(id, product))
+                    .orElseGet(() -> BatchGetItem.notFound(id)));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
     public Product createProduct(Product product) {
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangeEvent(saved.getId(), ProductChangeEvent.Type.CREATED));
+        return saved;
     }
 
     @Override
+    @Transactional
     public Product updateProduct(Long id, Product productDetails) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
@@ -43,29 +91,195 @@ public class ProductServiceImpl implements ProductService {
         product.setDescription(productDetails.getDescription());
         product.setPrice(productDetails.getPrice());
         
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductChangeEvent(id, ProductChangeEvent.Type.UPDATED));
+        return saved;
     }
 
     @Override
+    @Transactional
     public void deleteProduct(Long id) {
         Product product = productRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with id: " + id));
         
         productRepository.delete(product);
+        eventPublisher.publishEvent(new ProductChangeEvent(id, ProductChangeEvent.Type.DELETED));
+    }
+
+    /**
+     * Reprice products by id in a single UPDATE statement: the price is raised by percent, then by amount, and
+     * rounded to cents. Products the change would bring to zero or below keep their price.
+     * @param ids Ids of the products to reprice; unknown ids are ignored
+     * @param percent Percentage change, above -100
+     * @param amount Absolute change added after the percentage
+     * @return Number of products repriced
+     */
+    @Override
+    @Transactional
+    public int adjustPrices(Collection<Long> ids, double percent, double amount) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int updated = productRepository.adjustPriceByIdIn(ids, factor(percent, amount), amount);
+        publishBulkChange(updated, ProductChangeEvent.Type.BULK_UPDATED);
+        return updated;
+    }
+
+    /**
+     * Reprice every product priced within a range in a single UPDATE statement, like {@link #adjustPrices}
+     * @param min Lowest price, inclusive
+     * @param max Highest price, inclusive
+     * @return Number of products repriced
+     */
+    @Override
+    @Transactional
+    public int adjustPricesBetween(double min, double max, double percent, double amount) {
+        if (min > max) {
+            throw new InvalidRequestException("min must not be greater than max");
+        }
+        int updated = productRepository.adjustPriceByPriceBetween(min, max, factor(percent, amount), amount);
+        publishBulkChange(updated, ProductChangeEvent.Type.BULK_UPDATED);
+        return updated;
+    }
+
+    /**
+     * Delete products by id in a single DELETE statement. Products that still have orders are kept.
+     * @param ids Ids of the products to delete; unknown ids are ignored
+     * @return Number of products deleted
+     */
+    @Override
+    @Transactional
+    public int deleteProducts(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = productRepository.deleteUnorderedByIdIn(ids);
+        publishBulkChange(deleted, ProductChangeEvent.Type.BULK_DELETED);
+        return deleted;
+    }
+
+    private static double factor(double percent, double amount) {
+        if (!Double.isFinite(percent) || !Double.isFinite(amount)) {
+            throw new InvalidRequestException("percent and amount must be finite numbers");
+        }
+        if (percent <= -100) {
+            throw new InvalidRequestException("percent must be greater than -100");
+        }
+        if (percent == 0 && amount == 0) {
+            throw new InvalidRequestException("Either percent or amount must be non-zero");
+        }
+        return 1 + percent / 100;
+    }
+
+    // Bulk statements bypass the persistence context, so the catalog learns about them from one event
+    private void publishBulkChange(int rows, ProductChangeEvent.Type type) {
+        if (rows > 0) {
+            eventPublisher.publishEvent(new ProductChangeEvent(null, type));
+        }
+    }
+
+    /**
+     * Create or update a batch of products in one transaction, matching existing products by name through the
+     * name index; names match ignoring case under the default MySQL collation. No change event is published, the
+     * caller publishes one for the whole import.
+     * @param products Validated products keyed by their row index, with names unique within the batch
+     * @return The outcome of each product, in the iteration order of the map
+     */
+    @Override
+    @Transactional
+    public List<BatchItemResult> upsertProducts(Map<Integer, Product> products) {
+        Map<String, Product> existing = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        List<String> names = new ArrayList<>(products.size());
+        products.values().forEach(product -> names.add(product.getName()));
+        for (Product product : productRepository.findByNameIn(names)) {
+            // The oldest product wins when the table already holds several with the same name
+            existing.merge(product.getName(), product, (a, b) -> a.getId() < b.getId() ? a : b);
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(products.size());
+        for (Map.Entry<Integer, Product> entry : products.entrySet()) {
+            Product product = entry.getValue();
+            Product current = existing.get(product.getName());
+            if (current == null) {
+                product.setId(null);
+                Product saved = productRepository.save(product);
+                results.add(BatchItemResult.created(entry.getKey(), saved.getId()));
+            } else {
+                current.setName(product.getName());
+                current.setDescription(product.getDescription());
+                current.setPrice(product.getPrice());
+                results.add(BatchItemResult.updated(entry.getKey(), current.getId()));
+            }
+        }
+        return results;
     }
 
+    /**
+     * Search product names and descriptions in the catalog's trigram index, tolerating typos
+     * @param query Free text
+     * @param limit Maximum number of products returned
+     * @return Matching products, exact name matches first
+     */
     @Override
-    public List<Product> findProductsByName(String name) {
-        return productRepository.findByNameContainingIgnoreCase(name);
+    public List<Product> searchProducts(String query, int limit) {
+        return productCatalog.search(query, limit);
     }
 
+    /**
+     * Autocomplete product names from the catalog's prefix trie
+     * @return Products whose name or one of its words starts with the prefix, most ordered first
+     */
+    @Override
+    public List<Product> suggestProducts(String prefix, int limit) {
+        return productCatalog.suggest(prefix, limit);
+    }
+
+    /**
+     * Get the products cheaper than a price from the catalog's price index
+     * @return Matching products, cheapest first
+     */
     @Override
     public List<Product> findProductsByPriceLessThan(Double price) {
-        return productRepository.findByPriceLessThan(price);
+        return productCatalog.findByPrice(Double.NEGATIVE_INFINITY, Math.nextDown(price), false, 0, Integer.MAX_VALUE);
     }
 
+    /**
+     * Get the products more expensive than a price from the catalog's price index
+     * @return Matching products, cheapest first
+     */
     @Override
     public List<Product> findProductsByPriceGreaterThan(Double price) {
-        return productRepository.findByPriceGreaterThan(price);
+        return productCatalog.findByPrice(Math.nextUp(price), Double.POSITIVE_INFINITY, false, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read a page of the products priced within a range; without bounds this gives the N cheapest or most
+     * expensive products
+     * @param min Lowest price, inclusive, null for no lower bound
+     * @param max Highest price, inclusive, null for no upper bound
+     * @param descending Whether the most expensive products come first
+     * @param offset Number of matching products to skip
+     * @param limit Maximum number of products returned
+     * @return Matching products ordered by price, then id
+     */
+    @Override
+    public List<Product> findProductsByPriceBetween(Double min, Double max, boolean descending, int offset, int limit) {
+        return productCatalog.findByPrice(lowerBound(min, max), upperBound(max), descending, offset, limit);
+    }
+
+    @Override
+    public int countProductsByPriceBetween(Double min, Double max) {
+        return productCatalog.countByPrice(lowerBound(min, max), upperBound(max));
+    }
+
+    private static double lowerBound(Double min, Double max) {
+        if (min != null && max != null && min > max) {
+            throw new InvalidRequestException("'min' must not be greater than 'max'");
+        }
+        return min == null ? Double.NEGATIVE_INFINITY : min;
+    }
+
+    private static double upperBound(Double max) {
+        return max == null ? Double.POSITIVE_INFINITY : max;
     }
 }
@@ -0,0 +1,194 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.model.DailySales;
+import com.example.crud.model.Order;
+import com.example.crud.model.ProductSales;
+import com.example.crud.model.UserSales;
+import com.example.crud.repository.DailySalesRepository;
+import com.example.crud.repository.OrderRepository;
+import com.example.crud.repository.ProductSalesRepository;
+import com.example.crud.repository.UserSalesRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Maintains the per-day, per-product and per-user sales rollups.
+ * <p>
+ * Order writes report what they added or removed and only the resulting deltas are upserted, inside the
+ * same transaction as the order write, so the rollups always agree with the orders table. Reports then read
+ * a handful of rollup rows instead of aggregating the whole order history.
+ */
+@Service
+public class SalesRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalesRollupService.class);
+
+    private final DailySalesRepository dailySalesRepository;
+    private final ProductSalesRepository productSalesRepository;
+    private final UserSalesRepository userSalesRepository;
+    private final OrderRepository orderRepository;
+
+    @Autowired
+    public SalesRollupService(DailySalesRepository dailySalesRepository, ProductSalesRepository productSalesRepository,
+                              UserSalesRepository userSalesRepository, OrderRepository orderRepository) {
+        this.dailySalesRepository = dailySalesRepository;
+        this.productSalesRepository = productSalesRepository;
+        this.userSalesRepository = userSalesRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    @Transactional
+    public void added(Collection<Sale> sales) {
+        Deltas deltas = new Deltas();
+        sales.forEach(sale -> deltas.add(sale, 1));
+        deltas.apply();
+    }
+
+    @Transactional
+    public void removed(Sale sale) {
+        Deltas deltas = new Deltas();
+        deltas.add(sale, -1);
+        deltas.apply();
+    }
+
+    /**
+     * Move an updated order's contribution; rollup rows it stays in only receive the difference
+     */
+    @Transactional
+    public void changed(Sale before, Sale after) {
+        Deltas deltas = new Deltas();
+        deltas.add(before, -1);
+        deltas.add(after, 1);
+        deltas.apply();
+    }
+
+    public List<DailySales> getDailySales(LocalDate from, LocalDate to) {
+        return dailySalesRepository.findBySalesDateBetweenOrderBySalesDate(from, to);
+    }
+
+    public List<ProductSales> getTopProducts(int limit) {
+        return productSalesRepository.findAllByOrderByRevenueDesc(PageRequest.of(0, limit));
+    }
+
+    public List<UserSales> getTopUsers(int limit) {
+        return userSalesRepository.findAllByOrderByRevenueDesc(PageRequest.of(0, limit));
+    }
+
+    /**
+     * Snapshot missing unit prices from the current product prices and recompute every rollup from the orders table.
+     * Concurrent order writes made while this runs may be counted twice or not at all, so run it when idle.
+     */
+    @Transactional
+    public void rebuild() {
+        int backfilled = orderRepository.backfillUnitPrices();
+        dailySalesRepository.deleteAllInBatch();
+        productSalesRepository.deleteAllInBatch();
+        userSalesRepository.deleteAllInBatch();
+        int days = dailySalesRepository.rebuild();
+        int products = productSalesRepository.rebuild();
+        int users = userSalesRepository.rebuild();
+        logger.info("Sales rollups rebuilt: {} days, {} products, {} users ({} order prices backfilled)",
+                days, products, users, backfilled);
+    }
+
+    // First start with existing orders: seed the rollups once
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (dailySalesRepository.count() == 0 && orderRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    /**
+     * What one order contributes to the rollups
+     */
+    public static class Sale {
+
+        private final LocalDate orderDate;
+        private final Long productId;
+        private final Long userId;
+        private final long units;
+        private final BigDecimal revenue;
+
+        // The unit price is taken to the cent, as the rebuild queries cast it, so deltas and rebuilds agree
+        public Sale(LocalDate orderDate, Long productId, Long userId, Integer quantity, Double unitPrice) {
+            this.orderDate = orderDate;
+            this.productId = productId;
+            this.userId = userId;
+            this.units = quantity == null ? 0 : quantity;
+            this.revenue = unitPrice == null ? BigDecimal.ZERO
+                    : BigDecimal.valueOf(unitPrice).setScale(2, RoundingMode.HALF_UP).multiply(BigDecimal.valueOf(units));
+        }
+
+        public static Sale of(Order order) {
+            return new Sale(order.getOrderDate(), order.getProduct().getId(), order.getUser().getId(),
+                    order.getQuantity(), order.getUnitPrice());
+        }
+
+        public static Sale of(OrderSummary order) {
+            return new Sale(order.getOrderDate(), order.getProductId(), order.getUserId(),
+                    order.getQuantity(), order.getUnitPrice());
+        }
+    }
+
+    private static class Totals {
+        long orders;
+        long units;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        boolean isZero() {
+            return orders == 0 && units == 0 && revenue.signum() == 0;
+        }
+    }
+
+    // Net change per rollup row; sorted keys so concurrent transactions lock rows in the same order
+    private class Deltas {
+
+        private final Map<LocalDate, Totals> days = new TreeMap<>();
+        private final Map<Long, Totals> products = new TreeMap<>();
+        private final Map<Long, Totals> users = new TreeMap<>();
+
+        void add(Sale sale, int sign) {
+            add(days.computeIfAbsent(sale.orderDate, k -> new Totals()), sale, sign);
+            add(products.computeIfAbsent(sale.productId, k -> new Totals()), sale, sign);
+            add(users.computeIfAbsent(sale.userId, k -> new Totals()), sale, sign);
+        }
+
+        private void add(Totals totals, Sale sale, int sign) {
+            totals.orders += sign;
+            totals.units += sign * sale.units;
+            totals.revenue = sign < 0 ? totals.revenue.subtract(sale.revenue) : totals.revenue.add(sale.revenue);
+        }
+
+        void apply() {
+            apply(days, (day, t) -> dailySalesRepository.addDelta(day, t.orders, t.units, t.revenue));
+            apply(products, (productId, t) -> productSalesRepository.addDelta(productId, t.orders, t.units, t.revenue));
+            apply(users, (userId, t) -> userSalesRepository.addDelta(userId, t.orders, t.units, t.revenue));
+        }
+
+        private <K> void apply(Map<K, Totals> rows, BiConsumer<K, Totals> upsert) {
+            rows.forEach((key, totals) -> {
+                if (!totals.isZero()) {
+                    upsert.accept(key, totals);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.LongFunction;
+
+/**
+ * Compressed prefix trie (radix tree) over product names, built once per catalog snapshot.
+ * <p>
+ * Names are normalized like the trigram index and inserted whole and from the start of every later word, so
+ * "lap" suggests "Gaming Laptop" as well as "Laptop Sleeve". Products are ranked once by popularity (orders
+ * placed), then name and id, and every node keeps the best {@link #MAX_SUGGESTIONS} ranks found below it.
+ * A lookup walks one edge per matched run of characters and copies that list, so its cost depends on the
+ * prefix length and not on the catalog size.
+ * <p>
+ * The trie holds product ids, resolved against the current catalog on every lookup: changed products are returned
+ * as they are now and deleted ones are skipped, while new and renamed names are found once the index is rebuilt.
+ */
+final class SuggestIndex {
+
+    // Longest list kept per node; larger limits are cut to it
+    static final int MAX_SUGGESTIONS = 20;
+    private static final int[] NONE = new int[0];
+
+    // Product ids in rank order, most popular first
+    private final long[] ranked;
+    private final Node root = new Node("");
+
+    SuggestIndex(List<Product> products, Map<Long, Long> popularity) {
+        String[] names = new String[products.size()];
+        Integer[] order = new Integer[products.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = TrigramIndex.normalize(products.get(i).getName());
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> -popularity.getOrDefault(products.get(i).getId(), 0L))
+                .thenComparing(i -> names[i])
+                .thenComparing(i -> products.get(i).getId()));
+        this.ranked = new long[order.length];
+        for (int rank = 0; rank < order.length; rank++) {
+            ranked[rank] = products.get(order[rank]).getId();
+            String name = names[order[rank]];
+            if (name.isEmpty()) {
+                continue;
+            }
+            insert(name, rank);
+            for (int start = name.indexOf(' ') + 1; start > 0; start = name.indexOf(' ', start) + 1) {
+                insert(name.substring(start), rank);
+            }
+        }
+        root.finish();
+    }
+
+    /**
+     * Find the most popular products whose name, or a word of it, starts with a prefix
+     * @param prefix Start of the name; blank returns the most popular products
+     * @param limit Maximum number of products returned, at most {@link #MAX_SUGGESTIONS}
+     * @param products Current product of an id, null when it no longer exists
+     * @return Matching products, most popular first
+     */
+    List<Product> suggest(String prefix, int limit, LongFunction<Product> products) {
+        String key = TrigramIndex.normalize(prefix);
+        // A trailing space means the word is complete: "pad " must not suggest "padding"
+        if (!key.isEmpty() && Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key += ' ';
+        }
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            node = node.child(key.charAt(matched));
+            if (node == null) {
+                return Collections.emptyList();
+            }
+            int length = Math.min(node.label.length(), key.length() - matched);
+            if (!node.label.regionMatches(0, key, matched, length)) {
+                return Collections.emptyList();
+            }
+            matched += length;
+        }
+        List<Product> result = new ArrayList<>(Math.max(0, Math.min(limit, node.top.length)));
+        for (int i = 0; i < node.top.length && result.size() < limit; i++) {
+            Product product = products.apply(ranked[node.top[i]]);
+            if (product != null) {
+                result.add(product);
+            }
+        }
+        return result;
+    }
+
+    private void insert(String key, int rank) {
+        Node node = root;
+        int matched = 0;
+        while (matched < key.length()) {
+            char next = key.charAt(matched);
+            Node child = node.building.get(next);
+            if (child == null) {
+                child = new Node(key.substring(matched));
+                node.building.put(next, child);
+            } else {
+                int common = 0;
+                int max = Math.min(child.label.length(), key.length() - matched);
+                while (common < max && child.label.charAt(common) == key.charAt(matched + common)) {
+                    common++;
+                }
+                if (common < child.label.length()) {
+                    // The key leaves this edge part way along: split it where they differ
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.building.put(child.label.charAt(0), child);
+                    node.building.put(next, split);
+                    child = split;
+                }
+            }
+            matched += child.label.length();
+            node = child;
+        }
+        node.ranks.add(rank);
+    }
+
+    private static final class Node {
+
+        private String label;
+        // Mutable while the trie is built, then replaced by the sorted arrays below
+        private TreeMap<Character, Node> building = new TreeMap<>();
+        private List<Integer> ranks = new ArrayList<>(1);
+
+        private char[] keys;
+        private Node[] children;
+        private int[] top = NONE;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char key) {
+            int index = Arrays.binarySearch(keys, key);
+            return index < 0 ? null : children[index];
+        }
+
+        // Freeze the subtree and keep the best ranks of every node; a product reached twice counts once
+        void finish() {
+            keys = new char[building.size()];
+            children = new Node[building.size()];
+            int size = ranks.size();
+            int i = 0;
+            for (Map.Entry<Character, Node> entry : building.entrySet()) {
+                keys[i] = entry.getKey();
+                children[i] = entry.getValue();
+                children[i].finish();
+                size += children[i].top.length;
+                i++;
+            }
+            int[] all = new int[size];
+            int n = 0;
+            for (int rank : ranks) {
+                all[n++] = rank;
+            }
+            for (Node child : children) {
+                System.arraycopy(child.top, 0, all, n, child.top.length);
+                n += child.top.length;
+            }
+            Arrays.sort(all);
+            int distinct = 0;
+            for (int j = 0; j < all.length && distinct < MAX_SUGGESTIONS; j++) {
+                if (distinct == 0 || all[j] != all[distinct - 1]) {
+                    all[distinct++] = all[j];
+                }
+            }
+            top = Arrays.copyOf(all, distinct);
+            building = null;
+            ranks = null;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Trigram inverted index over product names and descriptions, built once per catalog snapshot.
+ * <p>
+ * Text is lower-cased and stripped of accents, then every run of three characters maps to the sorted slots
+ * of the products containing it. A query matches as a substring when its text is found in a product holding all
+ * of its trigrams, and fuzzily when the name or description holds at least half of them. Only the rarest
+ * posting lists are read to find candidates: a product sharing at least k of the query's m trigrams must appear
+ * in one of the m - k + 1 rarest lists. Queries shorter than three characters have no trigram and are answered
+ * by a scan.
+ * <p>
+ * Products keep their slot for as long as they exist. A single product change copies the slot and trigram arrays
+ * and rebuilds only the posting lists of the trigrams it added or removed; a new product takes a new slot at the
+ * end and a deleted one leaves its slot empty, so the index is rebuilt once too many slots are empty.
+ */
+final class TrigramIndex {
+
+    // Share of the query trigrams a fuzzy match must contain
+    private static final double FUZZY_THRESHOLD = 0.5;
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    private static final int[] NONE = new int[0];
+
+    // Indexed by slot; an empty slot holds a null product and blank text
+    private final Product[] products;
+    private final String[] names;
+    private final String[] descriptions;
+    // Trigrams in ascending order and, for each, the sorted slots of the products containing it
+    private final long[] keys;
+    private final int[][] postings;
+
+    TrigramIndex(List<Product> products) {
+        this.products = products.toArray(new Product[0]);
+        this.names = new String[products.size()];
+        this.descriptions = new String[products.size()];
+        Map<Long, Postings> building = new HashMap<>();
+        for (int i = 0; i < products.size(); i++) {
+            Product product = products.get(i);
+            names[i] = normalize(product.getName());
+            descriptions[i] = normalize(product.getDescription());
+            addGrams(building, names[i], i);
+            addGrams(building, descriptions[i], i);
+        }
+        this.keys = new long[building.size()];
+        int g = 0;
+        for (Long gram : building.keySet()) {
+            keys[g++] = gram;
+        }
+        Arrays.sort(keys);
+        this.postings = new int[keys.length][];
+        for (g = 0; g < keys.length; g++) {
+            postings[g] = building.get(keys[g]).toArray();
+        }
+    }
+
+    private TrigramIndex(Product[] products, String[] names, String[] descriptions, long[] keys, int[][] postings) {
+        this.products = products;
+        this.names = names;
+        this.descriptions = descriptions;
+        this.keys = keys;
+        this.postings = postings;
+    }
+
+    /**
+     * Number of slots, empty ones included; the slot of the next new product
+     */
+    int slots() {
+        return products.length;
+    }
+
+    /**
+     * Copy this index with the product of one slot replaced
+     * @param slot The slot of the product, or {@link #slots()} for a new product
+     * @param product The product to index in the slot, null to empty it
+     * @return A new index; this one is left unchanged
+     */
+    TrigramIndex with(int slot, Product product) {
+        int capacity = Math.max(products.length, slot + 1);
+        Product[] nextProducts = Arrays.copyOf(products, capacity);
+        String[] nextNames = Arrays.copyOf(names, capacity);
+        String[] nextDescriptions = Arrays.copyOf(descriptions, capacity);
+        Set<Long> removed = slot < products.length ? gramSet(names[slot], descriptions[slot]) : Collections.emptySet();
+        nextProducts[slot] = product;
+        nextNames[slot] = product == null ? "" : normalize(product.getName());
+        nextDescriptions[slot] = product == null ? "" : normalize(product.getDescription());
+        Set<Long> added = gramSet(nextNames[slot], nextDescriptions[slot]);
+
+        // Only the trigrams the product gained or lost get a new posting list; the others are shared
+        TreeSet<Long> changed = new TreeSet<>(removed);
+        changed.addAll(added);
+        changed.removeIf(gram -> removed.contains(gram) && added.contains(gram));
+        long[] nextKeys = new long[keys.length + changed.size()];
+        int[][] nextPostings = new int[nextKeys.length][];
+        int size = 0;
+        int g = 0;
+        for (long gram : changed) {
+            while (g < keys.length && keys[g] < gram) {
+                nextKeys[size] = keys[g];
+                nextPostings[size++] = postings[g++];
+            }
+            int[] list = NONE;
+            if (g < keys.length && keys[g] == gram) {
+                list = postings[g++];
+            }
+            list = added.contains(gram) ? withSlot(list, slot) : withoutSlot(list, slot);
+            if (list.length > 0) {
+                nextKeys[size] = gram;
+                nextPostings[size++] = list;
+            }
+        }
+        int rest = keys.length - g;
+        System.arraycopy(keys, g, nextKeys, size, rest);
+        System.arraycopy(postings, g, nextPostings, size, rest);
+        size += rest;
+        return new TrigramIndex(nextProducts, nextNames, nextDescriptions,
+                Arrays.copyOf(nextKeys, size), Arrays.copyOf(nextPostings, size));
+    }
+
+    /**
+     * Find the products best matching a query, exact substrings of the name first
+     * @param query Free text
+     * @param limit Maximum number of products returned
+     * @return Matching products, most relevant first
+     */
+    List<Product> search(String query, int limit) {
+        String text = normalize(query);
+        if (text.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        long[] grams = distinctGrams(text);
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+        if (grams.length == 0) {
+            for (int i = 0; i < names.length; i++) {
+                if (products[i] != null) {
+                    offer(top, limit, i, score(i, text, grams));
+                }
+            }
+        } else {
+            for (int i : candidates(grams)) {
+                offer(top, limit, i, score(i, text, grams));
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Hit.WORST_FIRST.reversed());
+        List<Product> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(products[hit.position]);
+        }
+        return result;
+    }
+
+    // Products appearing in the rarest posting lists, enough to include every product that can pass the threshold
+    private int[] candidates(long[] grams) {
+        int[][] lists = new int[grams.length][];
+        for (int g = 0; g < grams.length; g++) {
+            int at = Arrays.binarySearch(keys, grams[g]);
+            lists[g] = at < 0 ? NONE : postings[at];
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+        int required = (int) Math.ceil(FUZZY_THRESHOLD * grams.length);
+        int read = grams.length - required + 1;
+        if (read == 1) {
+            return lists[0];
+        }
+        int total = 0;
+        for (int g = 0; g < read; g++) {
+            total += lists[g].length;
+        }
+        int[] merged = new int[total];
+        int size = 0;
+        for (int g = 0; g < read; g++) {
+            System.arraycopy(lists[g], 0, merged, size, lists[g].length);
+            size += lists[g].length;
+        }
+        Arrays.sort(merged);
+        int unique = 0;
+        for (int i = 0; i < merged.length; i++) {
+            if (i == 0 || merged[i] != merged[i - 1]) {
+                merged[unique++] = merged[i];
+            }
+        }
+        return Arrays.copyOf(merged, unique);
+    }
+
+    // Substring of the name > substring of the description > share of trigrams found; negative when not a match
+    private double score(int position, String text, long[] grams) {
+        String name = names[position];
+        int at = name.indexOf(text);
+        if (at >= 0) {
+            return 3 + (at == 0 ? 1 : 0) + (double) text.length() / name.length();
+        }
+        String description = descriptions[position];
+        if (description.contains(text)) {
+            return 2 + (double) text.length() / description.length();
+        }
+        if (grams.length == 0) {
+            return -1;
+        }
+        double similarity = Math.max(containment(name, grams), 0.9 * containment(description, grams));
+        return similarity >= FUZZY_THRESHOLD ? similarity : -1;
+    }
+
+    private static double containment(String field, long[] grams) {
+        int found = 0;
+        for (long gram : grams) {
+            if (containsGram(field, gram)) {
+                found++;
+            }
+        }
+        return (double) found / grams.length;
+    }
+
+    private static boolean containsGram(String field, long gram) {
+        char first = (char) (gram >>> 32);
+        char second = (char) (gram >>> 16);
+        char third = (char) gram;
+        for (int i = field.indexOf(first); i >= 0 && i + 2 < field.length(); i = field.indexOf(first, i + 1)) {
+            if (field.charAt(i + 1) == second && field.charAt(i + 2) == third) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void offer(PriorityQueue<Hit> top, int limit, int position, double score) {
+        if (score < 0) {
+            return;
+        }
+        Hit hit = new Hit(position, score);
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (Hit.WORST_FIRST.compare(hit, top.peek()) > 0) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static void addGrams(Map<Long, Postings> building, String text, int position) {
+        for (int i = 0; i + 2 < text.length(); i++) {
+            building.computeIfAbsent(gram(text, i), k -> new Postings()).add(position);
+        }
+    }
+
+    private static Set<Long> gramSet(String name, String description) {
+        Set<Long> grams = new HashSet<>();
+        for (String text : new String[]{name, description}) {
+            for (int i = 0; i + 2 < text.length(); i++) {
+                grams.add(gram(text, i));
+            }
+        }
+        return grams;
+    }
+
+    private static int[] withSlot(int[] list, int slot) {
+        int at = Arrays.binarySearch(list, slot);
+        if (at >= 0) {
+            return list;
+        }
+        at = -at - 1;
+        int[] next = new int[list.length + 1];
+        System.arraycopy(list, 0, next, 0, at);
+        next[at] = slot;
+        System.arraycopy(list, at, next, at + 1, list.length - at);
+        return next;
+    }
+
+    private static int[] withoutSlot(int[] list, int slot) {
+        int at = Arrays.binarySearch(list, slot);
+        if (at < 0) {
+            return list;
+        }
+        int[] next = new int[list.length - 1];
+        System.arraycopy(list, 0, next, 0, at);
+        System.arraycopy(list, at + 1, next, at, list.length - at - 1);
+        return next;
+    }
+
+    private static long[] distinctGrams(String text) {
+        Set<Long> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 2 < text.length(); i++) {
+            grams.add(gram(text, i));
+        }
+        long[] result = new long[grams.size()];
+        int g = 0;
+        for (Long gram : grams) {
+            result[g++] = gram;
+        }
+        return result;
+    }
+
+    private static long gram(String text, int at) {
+        return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        return SPACES.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Sorted, duplicate-free slots; products are added in slot order
+    private static final class Postings {
+
+        private int[] positions = new int[4];
+        private int size;
+
+        void add(int position) {
+            if (size > 0 && positions[size - 1] == position) {
+                return;
+            }
+            if (size == positions.length) {
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            positions[size++] = position;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(positions, size);
+        }
+    }
+
+    private static final class Hit {
+
+        // Lower score first, then the later product, so the heap head is the first hit to drop
+        static final Comparator<Hit> WORST_FIRST = Comparator.<Hit>comparingDouble(hit -> hit.score)
+                .thenComparing(Comparator.<Hit>comparingInt(hit -> hit.position).reversed());
+
+        final int position;
+        final double score;
+
+        Hit(int position, double score) {
+            this.position = position;
+            this.score = score;
+        }
+    }
+}
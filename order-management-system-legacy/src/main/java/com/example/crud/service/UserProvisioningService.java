@@ -0,0 +1,187 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk user creation, for onboarding whole organizations at once.
+ * <p>
+ * Users are processed in chunks. For each chunk the users are validated, the taken usernames are found with one
+ * IN query, the passwords of the remaining users are hashed in parallel, and the users are inserted in one
+ * transaction. Hashing runs on a fixed pool of one thread per processor shared by all requests, so concurrent
+ * uploads queue for the CPU instead of multiplying threads. Usernames match ignoring case, as the unique index does
+ * under the default MySQL collation; the first of several users with the same username wins.
+ */
+@Service
+public class UserProvisioningService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserProvisioningService.class);
+
+    private final UserService userService;
+    private final PasswordEncoder passwordEncoder;
+    private final Validator validator;
+
+    @Value("${users.batch.chunk-size:500}")
+    private int chunkSize;
+
+    // Password hashing threads; 0 uses one per available processor
+    @Value("${users.batch.hashing-parallelism:0}")
+    private int parallelism;
+
+    private ExecutorService hashers;
+
+    @Autowired
+    public UserProvisioningService(UserService userService, PasswordEncoder passwordEncoder, Validator validator) {
+        this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
+        this.validator = validator;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (parallelism <= 0) {
+            parallelism = Runtime.getRuntime().availableProcessors();
+        }
+        hashers = Executors.newFixedThreadPool(parallelism, daemon("password-hasher"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        hashers.shutdownNow();
+    }
+
+    /**
+     * Create many users, one transaction per chunk
+     * @param users The users to create, with plain text passwords
+     * @return One result per submitted user, in submission order
+     */
+    public List<BatchItemResult> createUsers(List<User> users) {
+        List<BatchItemResult> results = new ArrayList<>(users.size());
+        Set<String> submitted = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        for (int start = 0; start < users.size(); start += chunkSize) {
+            List<User> chunk = users.subList(start, Math.min(start + chunkSize, users.size()));
+            results.addAll(createChunk(chunk, start, submitted));
+        }
+        long created = results.stream().filter(result -> result.getStatus() == BatchItemResult.Status.CREATED).count();
+        logger.info("Bulk user creation: {} submitted, {} created", users.size(), created);
+        return results;
+    }
+
+    private List<BatchItemResult> createChunk(List<User> chunk, int startIndex, Set<String> submitted) {
+        BatchItemResult[] results = new BatchItemResult[chunk.size()];
+        Map<Integer, User> candidates = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            int index = startIndex + i;
+            User user = chunk.get(i);
+            List<String> errors = validate(user);
+            if (!errors.isEmpty()) {
+                results[i] = BatchItemResult.invalid(index, errors);
+            } else if (!submitted.add(user.getUsername())) {
+                results[i] = BatchItemResult.duplicate(index, "username: Username appears earlier in the payload");
+            } else {
+                candidates.put(index, user);
+            }
+        }
+
+        // One IN query for the whole chunk, before any password is hashed
+        Set<String> taken = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        if (!candidates.isEmpty()) {
+            List<String> usernames = new ArrayList<>(candidates.size());
+            candidates.values().forEach(user -> usernames.add(user.getUsername()));
+            taken.addAll(userService.findExistingUsernames(usernames));
+        }
+        candidates.entrySet().removeIf(entry -> {
+            if (!taken.contains(entry.getValue().getUsername())) {
+                return false;
+            }
+            results[entry.getKey() - startIndex] = BatchItemResult.duplicate(entry.getKey(),
+                    "username: Username already exists");
+            return true;
+        });
+
+        if (!candidates.isEmpty()) {
+            for (BatchItemResult result : insert(candidates)) {
+                results[result.getIndex() - startIndex] = result;
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private List<String> validate(User user) {
+        if (user == null) {
+            return Collections.singletonList("User is required");
+        }
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<User> violation : validator.validate(user)) {
+            errors.add(violation.getPropertyPath() + ": " + violation.getMessage());
+        }
+        return errors;
+    }
+
+    // Hash the passwords on the pool, then insert; the chunk fails as a whole if either step does
+    private List<BatchItemResult> insert(Map<Integer, User> users) {
+        List<Future<String>> hashes = new ArrayList<>(users.size());
+        try {
+            for (User user : users.values()) {
+                String password = user.getPassword();
+                hashes.add(hashers.submit(() -> passwordEncoder.encode(password)));
+            }
+            int i = 0;
+            for (User user : users.values()) {
+                user.setPassword(hashes.get(i++).get());
+            }
+            return userService.insertUsers(users);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(users, "Interrupted while hashing passwords");
+        } catch (ExecutionException e) {
+            logger.error("Password hashing failed", e.getCause());
+            return failed(users, "Password hashing failed: " + e.getCause().getMessage());
+        } catch (RuntimeException e) {
+            // The chunk transaction was rolled back as a whole
+            return failed(users, "Chunk rolled back: " + e.getMessage());
+        } finally {
+            hashes.forEach(hash -> hash.cancel(true));
+        }
+    }
+
+    private static List<BatchItemResult> failed(Map<Integer, User> users, String error) {
+        List<BatchItemResult> failed = new ArrayList<>(users.size());
+        users.keySet().forEach(index -> failed.add(BatchItemResult.failed(index, error)));
+        return failed;
+    }
+
+    private static ThreadFactory daemon(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
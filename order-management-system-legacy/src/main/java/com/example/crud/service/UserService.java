@@ -1,13 +1,19 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.KeysetPage;
 import com.example.crud.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface UserService {
     
     List<User> getAllUsers();
+
+    KeysetPage<User> getUsersPage(String afterUsername, int limit);
     
     Optional<User> getUserById(Long id);
     
@@ -20,4 +26,8 @@ public interface UserService {
     void deleteUser(Long id);
     
     boolean usernameExists(String username);
+
+    List<String> findExistingUsernames(Collection<String> usernames);
+
+    List<BatchItemResult> insertUsers(Map<Integer, User> users);
 }
@@ -1,13 +1,20 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.KeysetPage;
 import com.example.crud.model.User;
 import com.example.crud.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityNotFoundException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -15,11 +22,14 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CachingAuthenticationProvider authenticationProvider;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                           CachingAuthenticationProvider authenticationProvider) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.authenticationProvider = authenticationProvider;
     }
 
     @Override
@@ -27,6 +37,26 @@ public class UserServiceImpl implements UserService {
         return userRepository.findAll();
     }
 
+    /**
+     * List users in username order, one keyset page at a time
+     * @param afterUsername Username after which the page starts, null or empty for the first page
+     * @param limit Page size
+     * @return The page, whose cursor is the last username when more users follow
+     */
+    @Override
+    public KeysetPage<User> getUsersPage(String afterUsername, int limit) {
+        // Fetch one extra row to know whether another page exists; roles come with each row
+        PageRequest pageRequest = PageRequest.of(0, limit + 1);
+        List<User> users = afterUsername == null || afterUsername.isEmpty()
+                ? userRepository.findAllByOrderByUsernameAsc(pageRequest)
+                : userRepository.findByUsernameGreaterThanOrderByUsernameAsc(afterUsername, pageRequest);
+        if (users.size() <= limit) {
+            return new KeysetPage<>(users, null);
+        }
+        List<User> page = users.subList(0, limit);
+        return new KeysetPage<>(page, page.get(limit - 1).getUsername());
+    }
+
     @Override
     public Optional<User> getUserById(Long id) {
         return userRepository.findById(id);
@@ -48,6 +78,7 @@ public class UserServiceImpl implements UserService {
     public User updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
+        String previousUsername = user.getUsername();
         
         user.setUsername(userDetails.getUsername());
         
@@ -59,19 +90,49 @@ public class UserServiceImpl implements UserService {
         user.setRoles(userDetails.getRoles());
         user.setEnabled(userDetails.isEnabled());
         
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Passwords verified before the change must be checked again
+        authenticationProvider.invalidate(previousUsername);
+        authenticationProvider.invalidate(saved.getUsername());
+        return saved;
     }
 
     @Override
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
-            throw new EntityNotFoundException("User not found with id: " + id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new EntityNotFoundException("User not found with id: " + id));
         userRepository.deleteById(id);
+        authenticationProvider.invalidate(user.getUsername());
     }
 
     @Override
     public boolean usernameExists(String username) {
         return userRepository.existsByUsername(username);
     }
+
+    @Override
+    public List<String> findExistingUsernames(Collection<String> usernames) {
+        return userRepository.findExistingUsernames(usernames);
+    }
+
+    /**
+     * Insert a batch of new users in one transaction. The inserts are flushed together at commit, so Hibernate
+     * groups them into JDBC batches (hibernate.jdbc.batch_size); a username taken in the meantime rolls back
+     * the whole batch.
+     * @param users Validated users keyed by their index in the submitted payload, with passwords already encoded
+     *              and usernames unique within the batch and not yet taken
+     * @return The CREATED outcome of each user, in the iteration order of the map
+     */
+    @Override
+    @Transactional
+    public List<BatchItemResult> insertUsers(Map<Integer, User> users) {
+        List<BatchItemResult> results = new ArrayList<>(users.size());
+        for (Map.Entry<Integer, User> entry : users.entrySet()) {
+            User user = entry.getValue();
+            user.setId(null);
+            User saved = userRepository.save(user);
+            results.add(BatchItemResult.created(entry.getKey(), saved.getId()));
+        }
+        return results;
+    }
 }
@@ -28,3 +28,79 @@ document.addEventListener('DOMContentLoaded', function() {
         });
     }
 });
+
+// Product autocomplete: suggestions come from the server as the name is typed,
+// and the hidden product field receives the id of the suggestion picked
+document.addEventListener('DOMContentLoaded', function() {
+    const searchInput = document.getElementById('productSearch');
+    const productInput = document.getElementById('product');
+    const suggestions = document.getElementById('productSuggestions');
+
+    if (!searchInput || !productInput || !suggestions) {
+        return;
+    }
+
+    const suggestUrl = searchInput.getAttribute('data-suggest-url');
+    const idsByLabel = new Map();
+    let timer = null;
+    let latestPrefix = null;
+
+    if (productInput.value) {
+        idsByLabel.set(searchInput.value, productInput.value);
+    }
+
+    function label(product) {
+        return product.name + ' - $' + product.price;
+    }
+
+    // Accept only a label that was offered; free text leaves no product selected
+    function selectTyped() {
+        const id = idsByLabel.get(searchInput.value);
+        productInput.value = id || '';
+        searchInput.setCustomValidity(id ? '' : 'Please pick a product from the suggestions');
+    }
+
+    function fetchSuggestions(prefix) {
+        latestPrefix = prefix;
+        fetch(suggestUrl + '?limit=10&prefix=' + encodeURIComponent(prefix), { credentials: 'same-origin' })
+            .then(function(response) {
+                return response.ok ? response.json() : [];
+            })
+            .then(function(products) {
+                // A slower, older response must not replace newer suggestions
+                if (prefix !== latestPrefix) {
+                    return;
+                }
+                suggestions.innerHTML = '';
+                products.forEach(function(product) {
+                    const option = document.createElement('option');
+                    option.value = label(product);
+                    idsByLabel.set(option.value, String(product.id));
+                    suggestions.appendChild(option);
+                });
+                selectTyped();
+            })
+            .catch(function() {
+                // Keep the previous suggestions; the field can still be retyped
+            });
+    }
+
+    searchInput.addEventListener('input', function() {
+        selectTyped();
+        if (productInput.value) {
+            return;
+        }
+        clearTimeout(timer);
+        timer = setTimeout(function() {
+            fetchSuggestions(searchInput.value);
+        }, 150);
+    });
+
+    searchInput.addEventListener('focus', function() {
+        if (!suggestions.options.length) {
+            fetchSuggestions(searchInput.value);
+        }
+    });
+
+    selectTyped();
+});
@@ -0,0 +1,80 @@
+package com.example.crud.config;
+
+import com.example.crud.model.User;
+import com.example.crud.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Moves roles from a legacy user_roles table into users.role_mask, against H2 in MySQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:role-mask;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(RoleMaskMigration.class)
+public class RoleMaskMigrationTest {
+
+    @Autowired
+    private RoleMaskMigration migration;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void migrate_CopiesRolesIntoMaskAndDropsLegacyTable() {
+        // Arrange
+        User alice = userRepository.save(new User("alice", "secret"));
+        User bob = userRepository.save(new User("bob", "secret"));
+        User carol = userRepository.save(new User("carol", "secret"));
+        entityManager.flush();
+        jdbcTemplate.execute("CREATE TABLE user_roles (user_id BIGINT NOT NULL, role VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role) VALUES (?, 'USER'), (?, 'ADMIN'), (?, 'API_USER'), (?, 'AUDITOR')",
+                alice.getId(), alice.getId(), bob.getId(), bob.getId());
+
+        // Act
+        int migrated = migration.migrate();
+        entityManager.clear();
+
+        // Assert
+        assertEquals(2, migrated);
+        assertEquals(Set.of("USER", "ADMIN"), userRepository.findById(alice.getId()).orElseThrow(AssertionError::new).getRoles());
+        assertEquals(Set.of("API_USER"), userRepository.findById(bob.getId()).orElseThrow(AssertionError::new).getRoles());
+        assertTrue(userRepository.findById(carol.getId()).orElseThrow(AssertionError::new).getRoles().isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = 'user_roles'", Integer.class));
+    }
+
+    @Test
+    void roles_AreStoredInOneColumn() {
+        // Arrange
+        User user = new User("dave", "secret");
+        user.setRoles(Set.of("ADMIN", "API_USER"));
+        user = userRepository.save(user);
+        entityManager.flush();
+
+        // Act
+        Integer mask = jdbcTemplate.queryForObject("SELECT role_mask FROM users WHERE id = ?", Integer.class, user.getId());
+
+        // Assert
+        assertEquals(6, mask);
+        assertThrows(IllegalArgumentException.class, () -> new User("eve", "secret").addRole("OWNER"));
+    }
+}
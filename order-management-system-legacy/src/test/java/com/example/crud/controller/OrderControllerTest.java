@@ -0,0 +1,451 @@
+package com.example.crud.controller;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.IntakeStatus;
+import com.example.crud.dto.KeysetPage;
+import com.example.crud.dto.OrderCursor;
+import com.example.crud.dto.OrderSearchCriteria;
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import com.example.crud.service.AppUserPrincipal;
+import com.example.crud.service.OrderExportService;
+import com.example.crud.service.OrderIntakeService;
+import com.example.crud.service.OrderService;
+
+@WebMvcTest(controllers = OrderController.class)
+@AutoConfigureMockMvc(addFilters = false) // Disable Spring Security filters for testing
+public class OrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private OrderService orderService;
+
+    @MockBean
+    private OrderIntakeService orderIntakeService;
+
+    @MockBean
+    private OrderExportService orderExportService;
+
+    private final AppUserPrincipal user = new AppUserPrincipal(1L, "user", null, true, Collections.singleton("USER"));
+    private final UsernamePasswordAuthenticationToken principal =
+            new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+
+    @Test
+    public void createOrders_WithJsonArray_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        when(orderService.createOrders(anyList(), eq(0))).thenReturn(Arrays.asList(
+                BatchItemResult.created(0, 10L),
+                BatchItemResult.invalid(1, Collections.singletonList("quantity: Quantity must be positive"))));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                .principal(principal)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"orderDate\":\"2025-06-12\",\"product\":{\"id\":1},\"quantity\":2},"
+                        + "{\"orderDate\":\"2025-06-12\",\"product\":{\"id\":1},\"quantity\":-1}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[0].id", is(10)))
+                .andExpect(jsonPath("$[1].status", is("INVALID")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createOrders_WithNdjson_ShouldAssignCurrentUser() throws Exception {
+        // Given
+        when(orderService.createOrders(anyList(), anyInt())).thenReturn(Arrays.asList(
+                BatchItemResult.created(0, 10L), BatchItemResult.created(1, 11L)));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                .principal(principal)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"orderDate\":\"2025-06-12\",\"product\":{\"id\":1},\"quantity\":2}\n"
+                        + "{\"orderDate\":\"2025-06-13\",\"product\":{\"id\":2},\"quantity\":1}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        ArgumentCaptor<List<Order>> captor = ArgumentCaptor.forClass(List.class);
+        verify(orderService).createOrders(captor.capture(), eq(0));
+        List<Order> submitted = captor.getValue();
+        assertEquals(2, submitted.size());
+        assertEquals("user", submitted.get(0).getUser().getUsername());
+        assertEquals("user", submitted.get(1).getUser().getUsername());
+    }
+
+    @Test
+    public void createOrders_WithMalformedItem_ShouldReportFailure() throws Exception {
+        // Given
+        when(orderService.createOrders(anyList(), eq(0))).thenReturn(Collections.singletonList(
+                BatchItemResult.created(0, 10L)));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders/batch")
+                .principal(principal)
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"orderDate\":\"2025-06-12\",\"product\":{\"id\":1},\"quantity\":2}\n{\"quantity\":"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].status", is("FAILED")));
+    }
+
+    @Test
+    public void getAllOrders_ShouldReturnPageWithNextCursor() throws Exception {
+        // Given
+        when(orderService.getOrdersPage(isNull(), eq(1)))
+                .thenReturn(new KeysetPage<>(Collections.singletonList(summary(5L)), "next-cursor"));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].id", is(5)))
+                .andExpect(jsonPath("$.items[0].productName", is("Laptop")))
+                .andExpect(jsonPath("$.items[0].username", is("user")))
+                .andExpect(jsonPath("$.nextCursor", is("next-cursor")));
+    }
+
+    @Test
+    public void getAllOrders_WithCursor_ShouldResumeAfterIt() throws Exception {
+        // Given
+        OrderCursor cursor = new OrderCursor(new Date(1749722400000L), 42L);
+        when(orderService.getOrdersPage(any(OrderCursor.class), eq(100)))
+                .thenReturn(new KeysetPage<>(Collections.emptyList(), null));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders").param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+
+        ArgumentCaptor<OrderCursor> captor = ArgumentCaptor.forClass(OrderCursor.class);
+        verify(orderService).getOrdersPage(captor.capture(), eq(100));
+        assertEquals(42L, captor.getValue().getId());
+        assertEquals(cursor.getCreatedAt(), captor.getValue().getCreatedAt());
+    }
+
+    @Test
+    public void getAllOrders_WithMatchingETag_ShouldNotLoadThePage() throws Exception {
+        // Given
+        when(orderService.getOrdersPageHash(null, 100)).thenReturn(0x1234L);
+
+        // When & Then
+        mockMvc.perform(get("/api/orders").header("If-None-Match", "\"1234\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(orderService, never()).getOrdersPage(any(), anyInt());
+    }
+
+    @Test
+    public void getAllOrders_WithStaleETag_ShouldReturnPageWithCurrentTag() throws Exception {
+        // Given
+        when(orderService.getOrdersPageHash(null, 100)).thenReturn(0x5678L);
+        when(orderService.getOrdersPage(null, 100))
+                .thenReturn(new KeysetPage<>(Collections.singletonList(summary(5L)), null));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders").header("If-None-Match", "\"1234\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"5678\""))
+                .andExpect(jsonPath("$.items", hasSize(1)));
+    }
+
+    @Test
+    public void getAllOrders_WithInvalidCursor_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/orders").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: not-a-cursor"));
+    }
+
+    @Test
+    public void getAllOrders_WithInternalIllegalArgument_ShouldReturnServerError() throws Exception {
+        // Given
+        when(orderService.getOrdersPage(null, 100)).thenThrow(new IllegalArgumentException("Negative page size"));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    public void getMyOrders_ShouldReturnCurrentUsersSummaries() throws Exception {
+        // Given
+        when(orderService.getOrderSummariesByUserId(1L)).thenReturn(Arrays.asList(summary(5L), summary(6L)));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/my-orders").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].id", is(6)))
+                .andExpect(jsonPath("$[1].productId", is(2)));
+    }
+
+    @Test
+    public void getMyOrders_WithMatchingETag_ShouldNotLoadTheOrders() throws Exception {
+        // Given
+        when(orderService.getOrderSummariesHashByUserId(1L)).thenReturn(0xabcL);
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/my-orders").principal(principal).header("If-None-Match", "\"abc\""))
+                .andExpect(status().isNotModified());
+
+        verify(orderService, never()).getOrderSummariesByUserId(1L);
+    }
+
+    @Test
+    public void getOrderById_ShouldCheckOwnershipInOneLookup() throws Exception {
+        // Given
+        when(orderService.getOrder(5L, "user", false)).thenReturn(Optional.of(order(5L)));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/5").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(5)))
+                .andExpect(jsonPath("$.user.username", is("user")))
+                .andExpect(jsonPath("$.user.password").doesNotExist())
+                .andExpect(jsonPath("$.product.id", is(2)))
+                .andExpect(jsonPath("$.product.name", is("Laptop")));
+
+        verify(orderService, never()).orderExists(5L);
+    }
+
+    @Test
+    public void getOrderById_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+        // Given
+        when(orderService.getOrder(5L, "user", false)).thenReturn(Optional.of(order(5L)));
+        String etag = mockMvc.perform(get("/api/orders/5").principal(principal))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/5").principal(principal).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void getOrdersByIds_ShouldReturnPerIdResultsInRequestOrder() throws Exception {
+        // Given
+        when(orderService.getOrderSummaries(Arrays.asList(6L, 5L), "user", false)).thenReturn(Arrays.asList(
+                BatchGetItem.<OrderSummary>notFound(6L), BatchGetItem.found(5L, summary(5L))));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/by-ids?ids=6,5").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status", is("NOT_FOUND")))
+                .andExpect(jsonPath("$[1].status", is("FOUND")))
+                .andExpect(jsonPath("$[1].item.id", is(5)));
+    }
+
+    @Test
+    public void getOrderById_OfAnotherUser_ShouldReturnForbidden() throws Exception {
+        // Given
+        when(orderService.getOrder(5L, "user", false)).thenReturn(Optional.empty());
+        when(orderService.orderExists(5L)).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/5").principal(principal))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.message", is("You do not have permission to view this order")));
+    }
+
+    @Test
+    public void updateOrder_AsOwner_ShouldReturnUpdatedOrder() throws Exception {
+        // Given
+        when(orderService.updateOrder(eq(5L), any(Order.class), eq("user"), eq(false)))
+                .thenReturn(Optional.of(order(5L)));
+
+        // When & Then
+        mockMvc.perform(put("/api/orders/5")
+                .principal(principal)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orderDate\":\"2025-06-12\",\"product\":{\"id\":2},\"quantity\":2}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(5)))
+                .andExpect(jsonPath("$.quantity", is(2)))
+                .andExpect(jsonPath("$.product.id", is(2)))
+                .andExpect(jsonPath("$.user.id", is(1)));
+    }
+
+    @Test
+    public void updateOrder_WhenMissing_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(orderService.updateOrder(eq(5L), any(Order.class), eq("user"), eq(false))).thenReturn(Optional.empty());
+        when(orderService.orderExists(5L)).thenReturn(false);
+
+        // When & Then
+        mockMvc.perform(put("/api/orders/5")
+                .principal(principal)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orderDate\":\"2025-06-12\",\"product\":{\"id\":2},\"quantity\":2}"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", is("Order not found with id: 5")));
+    }
+
+    @Test
+    public void deleteOrder_AsOwner_ShouldSucceed() throws Exception {
+        // Given
+        when(orderService.deleteOrder(5L, "user", false)).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(delete("/api/orders/5").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message", is("Order deleted successfully")));
+    }
+
+    @Test
+    public void createOrder_WithAsyncIntake_ShouldReturnAccepted() throws Exception {
+        // Given
+        when(orderIntakeService.isEnabled()).thenReturn(true);
+        when(orderIntakeService.submit(any(Order.class), any(User.class))).thenReturn(IntakeStatus.pending("abc", "user"));
+
+        // When & Then
+        mockMvc.perform(post("/api/orders")
+                .principal(principal)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"orderDate\":\"2025-06-12\",\"product\":{\"id\":2},\"quantity\":2}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/orders/intake/abc"))
+                .andExpect(jsonPath("$.trackingId", is("abc")))
+                .andExpect(jsonPath("$.status", is("PENDING")));
+
+        verify(orderService, never()).createOrder(any(Order.class));
+    }
+
+    @Test
+    public void getIntakeStatus_OfAnotherUser_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(orderIntakeService.getStatus("abc")).thenReturn(Optional.of(IntakeStatus.created("abc", 5L, "someone")));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/intake/abc").principal(principal))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void getIntakeStatus_OfOwnOrder_ShouldReturnStatus() throws Exception {
+        // Given
+        when(orderIntakeService.getStatus("abc")).thenReturn(Optional.of(IntakeStatus.created("abc", 5L, "user")));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/intake/abc").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.orderId", is(5)));
+    }
+
+    @Test
+    public void getIntakeStatus_AsAdmin_ShouldReturnAnotherUsersStatus() throws Exception {
+        // Given
+        AppUserPrincipal admin = new AppUserPrincipal(2L, "admin", null, true, Collections.singleton("ADMIN"));
+        when(orderIntakeService.getStatus("abc")).thenReturn(Optional.of(IntakeStatus.created("abc", 5L, "someone")));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/intake/abc")
+                        .principal(new UsernamePasswordAuthenticationToken(admin, null, admin.getAuthorities())))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void searchOrders_AsUser_ShouldOnlySearchOwnOrders() throws Exception {
+        // Given
+        when(orderService.searchOrders(any(OrderSearchCriteria.class), isNull(), eq(20)))
+                .thenReturn(new KeysetPage<>(Collections.singletonList(summary(5L)), null));
+
+        // When & Then
+        mockMvc.perform(get("/api/orders/search?userId=99&productId=2&from=2025-06-01&minQuantity=2&limit=20")
+                .principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)));
+
+        ArgumentCaptor<OrderSearchCriteria> captor = ArgumentCaptor.forClass(OrderSearchCriteria.class);
+        verify(orderService).searchOrders(captor.capture(), isNull(), eq(20));
+        assertEquals(1L, captor.getValue().getUserId());
+        assertEquals(2L, captor.getValue().getProductId());
+        assertEquals(LocalDate.of(2025, 6, 1), captor.getValue().getFrom());
+        assertEquals(2, captor.getValue().getMinQuantity());
+    }
+
+    @Test
+    public void exportOrders_WithGzip_ShouldSendAttachment() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/orders/export?format=ndjson&from=2025-06-01&gzip=true").principal(principal))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Type", "application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"orders.ndjson.gz\""));
+
+        verify(orderExportService).export(eq(DataFormat.NDJSON), eq(LocalDate.of(2025, 6, 1)),
+                isNull(), eq(true), any());
+    }
+
+    @Test
+    public void exportOrders_WithInvertedRange_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/orders/export?from=2025-07-01&to=2025-06-01").principal(principal))
+                .andExpect(status().isBadRequest());
+
+        verify(orderExportService, never()).export(any(), any(), any(), anyBoolean(), any());
+    }
+
+    private OrderSummary summary(Long id) {
+        return new OrderSummary(id, LocalDate.of(2025, 6, 12), 2, 1200.0, null, new Date(), new Date(),
+                2L, "Laptop", 1200.0, 1L, "user");
+    }
+
+    private Order order(Long id) {
+        User owner = new User("user", "secret");
+        owner.setId(1L);
+        owner.addRole("USER");
+        Product product = new Product("Laptop", "", 1200.0);
+        product.setId(2L);
+        Order order = new Order(LocalDate.of(2025, 6, 12), owner, product, 2, null);
+        order.setId(id);
+        order.setUnitPrice(1200.0);
+        return order;
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.crud.controller;
+
+import java.util.Collections;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.format.FormatterRegistry;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.service.AppUserPrincipal;
+import com.example.crud.service.OrderService;
+import com.example.crud.service.ProductChangeFeed;
+import com.example.crud.service.ProductImportService;
+import com.example.crud.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// The order form picks its product from /api/products/suggest and posts the id back, as orderForm.js does
+@WebMvcTest(controllers = {ProductController.class, OrderWebController.class})
+@AutoConfigureMockMvc(addFilters = false) // Disable Spring Security filters for testing
+public class OrderFormTest {
+
+    // A year after the id epoch, far beyond what a 32-bit integer holds
+    private static final long PRODUCT_ID = 129171456000129L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @MockBean
+    private ProductService productService;
+
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductChangeFeed productChangeFeed;
+
+    @MockBean
+    private OrderService orderService;
+
+    private final AppUserPrincipal user = new AppUserPrincipal(1L, "user", null, true, Collections.singleton("USER"));
+
+    // Stands in for Spring Data's DomainClassConverter, which needs the real repositories
+    @TestConfiguration
+    static class ProductIdConverterConfig {
+
+        @Bean
+        WebMvcConfigurer productIdConverter() {
+            return new WebMvcConfigurer() {
+                @Override
+                public void addFormatters(FormatterRegistry registry) {
+                    registry.addConverter(String.class, Product.class, (Converter<String, Product>) id -> {
+                        Product product = new Product();
+                        product.setId(Long.valueOf(id));
+                        return product;
+                    });
+                }
+            };
+        }
+    }
+
+    @Test
+    public void saveOrder_WithIdFromSuggestions_ShouldOrderThatProduct() throws Exception {
+        // Given
+        Product laptop = new Product("Laptop", "15 inch", 1200.0);
+        laptop.setId(PRODUCT_ID);
+        when(productService.suggestProducts("lap", 10)).thenReturn(Collections.singletonList(laptop));
+        String suggestions = mockMvc.perform(get("/api/products/suggest?prefix=lap&limit=10"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode id = objectMapper.readTree(suggestions).get(0).get("id");
+
+        // When
+        mockMvc.perform(post("/orders/save")
+                .principal(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()))
+                .param("product", id.asText())
+                .param("orderDate", "2026-01-15")
+                .param("quantity", "2"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/orders"));
+
+        // Then
+        assertTrue(id.isIntegralNumber());
+        ArgumentCaptor<Order> order = ArgumentCaptor.forClass(Order.class);
+        verify(orderService).createOrder(order.capture());
+        assertEquals(PRODUCT_ID, order.getValue().getProduct().getId());
+        assertEquals(1L, order.getValue().getUser().getId());
+    }
+
+    @Test
+    public void saveOrder_EditByOwner_KeepsOwnerAndChecksOwnership() throws Exception {
+        // Given
+        when(orderService.updateOrder(eq(7L), any(Order.class), eq("user"), eq(false)))
+                .thenReturn(Optional.of(new Order()));
+
+        // When
+        mockMvc.perform(post("/orders/save")
+                .principal(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()))
+                .param("id", "7")
+                .param("product", String.valueOf(PRODUCT_ID))
+                .param("orderDate", "2026-01-15")
+                .param("quantity", "3"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/orders"));
+
+        // Then
+        ArgumentCaptor<Order> changes = ArgumentCaptor.forClass(Order.class);
+        verify(orderService).updateOrder(eq(7L), changes.capture(), eq("user"), eq(false));
+        assertNull(changes.getValue().getUser());
+        assertEquals(3, changes.getValue().getQuantity());
+    }
+
+    @Test
+    public void saveOrder_EditOfAnotherUsersOrder_IsRejected() throws Exception {
+        // Given
+        when(orderService.updateOrder(eq(7L), any(Order.class), eq("user"), eq(false))).thenReturn(Optional.empty());
+        when(orderService.orderExists(7L)).thenReturn(true);
+
+        // When & Then
+        mockMvc.perform(post("/orders/save")
+                .principal(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()))
+                .param("id", "7")
+                .param("product", String.valueOf(PRODUCT_ID))
+                .param("orderDate", "2026-01-15")
+                .param("quantity", "3"))
+                .andExpect(flash().attributeCount(0));
+        verify(orderService, never()).createOrder(any(Order.class));
+    }
+}
@@ -1,7 +1,9 @@
 package com.example.crud.controller;
 
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasSize;
@@ -9,7 +11,9 @@ import static org.hamcrest.Matchers.is;
 import org.junit.jupiter.api.Test;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,14 +22,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.example.crud.model.Product;
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.ImportStatus;
+import com.example.crud.service.ProductChangeFeed;
+import com.example.crud.service.ProductImportService;
 import com.example.crud.service.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -39,6 +51,12 @@ public class ProductControllerTest {
     @MockBean
     private ProductService productService;
 
+    @MockBean
+    private ProductImportService productImportService;
+
+    @MockBean
+    private ProductChangeFeed productChangeFeed;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -60,6 +78,55 @@ public class ProductControllerTest {
         verify(productService).getAllProducts();
     }
 
+    @Test
+    public void getAllProducts_WithMatchingETag_ShouldReturnNotModifiedWithoutReading() throws Exception {
+        // Given
+        when(productService.getCatalogHash()).thenReturn(42L);
+
+        // When & Then
+        mockMvc.perform(get("/api/products").header("If-None-Match", "\"2a\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"2a\""));
+        verify(productService, never()).getAllProducts();
+    }
+
+    @Test
+    public void getAllProducts_WhenCatalogChanged_ShouldReturnNewETag() throws Exception {
+        // Given
+        when(productService.getCatalogHash()).thenReturn(43L);
+        when(productService.getAllProducts()).thenReturn(Arrays.asList(new Product("Laptop", "", 1200.0)));
+
+        // When & Then
+        mockMvc.perform(get("/api/products").header("If-None-Match", "\"2a\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"2b\""))
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+
+    @Test
+    public void getProductsByIdsPost_ShouldReturnPerIdResults() throws Exception {
+        // Given
+        Product product = new Product("Laptop", "", 1200.0);
+        when(productService.getProductsByIds(Arrays.asList(1L, 2L))).thenReturn(Arrays.asList(
+                BatchGetItem.found(1L, product), BatchGetItem.<Product>notFound(2L)));
+
+        // When & Then
+        mockMvc.perform(post("/api/products/by-ids")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].item.name", is("Laptop")))
+                .andExpect(jsonPath("$[1].status", is("NOT_FOUND")));
+    }
+
+    @Test
+    public void getProductsByIds_WithTooManyIds_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/products/by-ids").param("ids", LongStream.rangeClosed(1, 501)
+                .mapToObj(String::valueOf).toArray(String[]::new)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void getProductById_WhenProductExists_ShouldReturnProduct() throws Exception {
         // Given
@@ -134,4 +201,113 @@ public class ProductControllerTest {
 
         verify(productService).deleteProduct(1L);
     }
+
+    @Test
+    public void suggestProducts_ShouldClampLimit() throws Exception {
+        // Given
+        Product product = new Product("Laptop", "Description", 1200.0);
+        when(productService.suggestProducts("lap", 20)).thenReturn(Arrays.asList(product));
+
+        // When & Then
+        mockMvc.perform(get("/api/products/suggest?prefix=lap&limit=500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Laptop")));
+    }
+
+    @Test
+    public void adjustPrices_ByRange_ShouldReturnUpdatedCount() throws Exception {
+        // Given
+        when(productService.adjustPricesBetween(100.0, Double.MAX_VALUE, -10.0, 0.0)).thenReturn(7);
+
+        // When & Then
+        mockMvc.perform(post("/api/products/bulk/price")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"minPrice\":100,\"percent\":-10}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated", is(7)));
+    }
+
+    @Test
+    public void adjustPrices_WithIdsAndRange_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/products/bulk/price")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"ids\":[1],\"maxPrice\":10,\"amount\":1}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void deleteProducts_ShouldReturnDeletedCount() throws Exception {
+        // Given
+        when(productService.deleteProducts(Arrays.asList(1L, 2L))).thenReturn(1);
+
+        // When & Then
+        mockMvc.perform(post("/api/products/bulk/delete")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[1,2]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted", is(1)));
+    }
+
+    @Test
+    public void streamChanges_ShouldResumeFromLastEventId() throws Exception {
+        // Given
+        when(productChangeFeed.subscribe("42")).thenReturn(new SseEmitter());
+
+        // When & Then
+        mockMvc.perform(get("/api/products/changes").header("Last-Event-ID", "42"))
+                .andExpect(request().asyncStarted());
+        verify(productChangeFeed).subscribe("42");
+    }
+
+    @Test
+    public void getProductsByPriceBetween_ShouldReturnPageAndTotal() throws Exception {
+        // Given
+        Product product = new Product("Product 2", "Description 2", 20.0);
+        when(productService.findProductsByPriceBetween(10.0, null, true, 5, 2)).thenReturn(Arrays.asList(product));
+        when(productService.countProductsByPriceBetween(10.0, null)).thenReturn(6);
+
+        // When & Then
+        mockMvc.perform(get("/api/products/filter/price-between?min=10&order=desc&offset=5&limit=2")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "6"))
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name", is("Product 2")));
+    }
+
+    @Test
+    public void getProductsByPriceBetween_WithUnknownOrder_ShouldReturnBadRequest() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/api/products/filter/price-between?order=random")
+                .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void importProducts_ShouldAcceptCsvBodyAndReturnJob() throws Exception {
+        // Given
+        when(productImportService.submit(eq(DataFormat.CSV), any(InputStream.class)))
+                .thenReturn(new ImportStatus("job-1", "csv", 10));
+
+        // When & Then
+        mockMvc.perform(post("/api/products/import")
+                .contentType("text/csv")
+                .content("name,price\nLaptop,1200\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/products/import/job-1"))
+                .andExpect(jsonPath("$.state", is("QUEUED")));
+    }
+
+    @Test
+    public void getImportStatus_WhenUnknown_ShouldReturnNotFound() throws Exception {
+        // Given
+        when(productImportService.getStatus("nope")).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/products/import/nope"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", containsString("nope")));
+    }
 }
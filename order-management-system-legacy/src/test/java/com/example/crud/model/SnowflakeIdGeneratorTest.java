@@ -0,0 +1,135 @@
+package com.example.crud.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.service.ServiceRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SnowflakeIdGeneratorTest {
+
+    @Test
+    void idsAreUniqueUnderConcurrentGeneration() throws Exception {
+        // Arrange
+        SnowflakeIdGenerator.Sequencer sequencer = new SnowflakeIdGenerator.Sequencer(7, System::currentTimeMillis);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            tasks.add(() -> {
+                long previous = -1;
+                for (int i = 0; i < 50_000; i++) {
+                    long id = sequencer.nextId();
+                    assertTrue(id > previous, "ids must increase within a thread");
+                    previous = id;
+                    ids.add(id);
+                }
+                return null;
+            });
+        }
+
+        // Act
+        for (Future<Void> future : executor.invokeAll(tasks)) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(8 * 50_000, ids.size());
+    }
+
+    @Test
+    void idEmbedsTimestampAndNode() {
+        // Arrange
+        long now = SnowflakeIdGenerator.EPOCH + 123_456L;
+        SnowflakeIdGenerator.Sequencer sequencer = new SnowflakeIdGenerator.Sequencer(21, () -> now);
+
+        // Act
+        long first = sequencer.nextId();
+        long second = sequencer.nextId();
+
+        // Assert
+        assertEquals(123_456L, first >>> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS));
+        assertEquals(21L, (first >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID);
+        assertEquals(0L, first & SnowflakeIdGenerator.SEQUENCE_MASK);
+        assertEquals(1L, second & SnowflakeIdGenerator.SEQUENCE_MASK);
+    }
+
+    @Test
+    void idsKeepIncreasingWhenClockGoesBackwards() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000L);
+        SnowflakeIdGenerator.Sequencer sequencer = new SnowflakeIdGenerator.Sequencer(1, clock::get);
+
+        // Act
+        long before = sequencer.nextId();
+        clock.addAndGet(-5_000L);
+        long after = sequencer.nextId();
+
+        // Assert
+        assertTrue(after > before);
+    }
+
+    @Test
+    void idsKeepIncreasingWhenSequenceOverflows() {
+        // Arrange
+        long now = SnowflakeIdGenerator.EPOCH + 1_000L;
+        SnowflakeIdGenerator.Sequencer sequencer = new SnowflakeIdGenerator.Sequencer(1, () -> now);
+
+        // Act & Assert
+        long previous = sequencer.nextId();
+        for (int i = 0; i < 3 * (SnowflakeIdGenerator.SEQUENCE_MASK + 1); i++) {
+            long id = sequencer.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    void idsStayExactAsJavaScriptNumbersForTheWholeTimestampRange() {
+        // Arrange: the last millisecond the timestamp bits can hold, on the highest node
+        long now = SnowflakeIdGenerator.EPOCH + (1L << 41) - 1;
+        SnowflakeIdGenerator.Sequencer sequencer =
+                new SnowflakeIdGenerator.Sequencer(SnowflakeIdGenerator.MAX_NODE_ID, () -> now);
+
+        // Act
+        long id = 0;
+        for (int i = 0; i <= SnowflakeIdGenerator.SEQUENCE_MASK; i++) {
+            id = sequencer.nextId();
+        }
+
+        // Assert
+        assertEquals((1L << 53) - 1, id);
+        assertEquals(id, (long) (double) id);
+    }
+
+    @Test
+    void configure_WithoutNodeId_FailsInsteadOfDefaulting() {
+        // Arrange
+        ServiceRegistry serviceRegistry = mock(ServiceRegistry.class);
+        ConfigurationService configurationService = mock(ConfigurationService.class);
+        when(serviceRegistry.getService(ConfigurationService.class)).thenReturn(configurationService);
+        when(configurationService.getSettings())
+                .thenReturn(Collections.singletonMap(SnowflakeIdGenerator.NODE_ID_SETTING, ""));
+
+        // Act & Assert
+        MappingException e = assertThrows(MappingException.class,
+                () -> new SnowflakeIdGenerator().configure(null, new Properties(), serviceRegistry));
+        assertTrue(e.getMessage().contains("is not set"));
+    }
+}
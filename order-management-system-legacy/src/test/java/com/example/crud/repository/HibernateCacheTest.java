@@ -0,0 +1,145 @@
+package com.example.crud.repository;
+
+import com.example.crud.config.HibernateCacheConfig;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Each repository call runs in its own transaction, as in the application, so entities reach the second-level
+ * cache when the writing transaction commits and later reads can be served from it.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:hibernate-cache;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(HibernateCacheConfig.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class HibernateCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductSalesRepository productSalesRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterBinder hibernateCacheMetrics;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        productSalesRepository.deleteAllInBatch();
+        productRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void findByUsername_SecondLookupRunsNoSql() {
+        // Arrange
+        User user = new User("alice", "secret");
+        user.addRole("USER");
+        userRepository.save(user);
+        userRepository.findByUsername("alice");
+        long statements = statistics.getPrepareStatementCount();
+
+        // Act
+        User cached = userRepository.findByUsername("alice").orElseThrow(AssertionError::new);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertTrue(cached.getRoles().contains("USER"));
+        assertTrue(statistics.getQueryCacheHitCount() > 0);
+    }
+
+    @Test
+    void findByUsername_SeesRoleChanges() {
+        // Arrange
+        User user = new User("bob", "secret");
+        user.addRole("USER");
+        user = userRepository.save(user);
+        userRepository.findByUsername("bob");
+
+        // Act
+        user.addRole("ADMIN");
+        userRepository.save(user);
+
+        // Assert
+        assertTrue(userRepository.findByUsername("bob").orElseThrow(AssertionError::new).getRoles().contains("ADMIN"));
+    }
+
+    @Test
+    void nativeRollupWrite_KeepsProductsCached() {
+        // Arrange
+        Product product = productRepository.save(new Product("Laptop", "", 1200.0));
+        productRepository.findById(product.getId());
+        MeterRegistry registry = new SimpleMeterRegistry();
+        hibernateCacheMetrics.bindTo(registry);
+
+        // Act
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> productSalesRepository.addDelta(product.getId(), 1, 1, new BigDecimal("1200.00")));
+        long statements = statistics.getPrepareStatementCount();
+        Product cached = productRepository.findById(product.getId()).orElseThrow(AssertionError::new);
+
+        // Assert
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals("Laptop", cached.getName());
+        assertTrue(registry.get("cache.gets").tag("cache", HibernateCacheConfig.PRODUCTS).tag("result", "hit")
+                .functionCounter().count() > 0);
+    }
+
+    @Test
+    void bulkPriceUpdate_EvictsCachedProducts() {
+        // Arrange
+        Product product = productRepository.save(new Product("Phone", "", 800.0));
+        productRepository.findById(product.getId());
+
+        // Act
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                productRepository.adjustPriceByIdIn(Collections.singletonList(product.getId()), 1.1, 0));
+
+        // Assert
+        assertEquals(880.0, productRepository.findById(product.getId()).map(Product::getPrice).orElse(null));
+    }
+}
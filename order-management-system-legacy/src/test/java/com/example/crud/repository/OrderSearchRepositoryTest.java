@@ -0,0 +1,237 @@
+package com.example.crud.repository;
+
+import com.example.crud.dto.OrderSearchCriteria;
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the search against H2 in MySQL mode and checks, with EXPLAIN, that the orders table is read through
+ * the declared index on the most selective filter. H2 adds its own index for each foreign key where MySQL reuses
+ * the composite index leading with the same column, so the foreign keys of the orders table are dropped first to
+ * leave H2 with the same indexes as MySQL.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-search;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.criteria.literal_handling_mode=bind",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.crud.repository.OrderSearchRepositoryTest$LastStatement"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class OrderSearchRepositoryTest {
+
+    // Index and index conditions H2 writes after the orders table in a query plan
+    private static final Pattern ORDERS_ACCESS = Pattern.compile("\"orders\" \"\\w+\"\\s*/\\* ([^*]+?)\\s*\\*/");
+
+    private static final Index[] ORDER_INDEXES = Order.class.getAnnotation(Table.class).indexes();
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User alice;
+    private User bob;
+    private Product laptop;
+    private Product phone;
+
+    @BeforeEach
+    void setUp() {
+        // DDL commits in H2, so this runs before anything is written in the test transaction
+        jdbcTemplate.queryForList("SELECT constraint_name FROM information_schema.table_constraints"
+                        + " WHERE table_name = 'orders' AND constraint_type = 'FOREIGN KEY'", String.class)
+                .forEach(constraint -> jdbcTemplate.execute("ALTER TABLE orders DROP CONSTRAINT " + constraint));
+        alice = entityManager.persist(new User("alice", "secret"));
+        bob = entityManager.persist(new User("bob", "secret"));
+        laptop = entityManager.persist(new Product("Laptop", "", 1200.0));
+        phone = entityManager.persist(new Product("Phone", "", 800.0));
+        entityManager.persist(new Order(LocalDate.of(2025, 6, 1), alice, laptop, 1, null));
+        entityManager.persist(new Order(LocalDate.of(2025, 6, 5), alice, phone, 5, null));
+        entityManager.persist(new Order(LocalDate.of(2025, 6, 9), bob, laptop, 3, null));
+        entityManager.flush();
+    }
+
+    private OrderSearchCriteria criteria() {
+        return new OrderSearchCriteria();
+    }
+
+    private List<OrderSummary> search(OrderSearchCriteria criteria) {
+        return orderRepository.findSummaries(OrderSpecifications.matching(criteria), 50);
+    }
+
+    // Access path to the orders table of the last search, planned with every parameter null
+    private String ordersAccess() {
+        String plan = jdbcTemplate.query(con -> {
+            PreparedStatement statement = con.prepareStatement("EXPLAIN " + LastStatement.sql);
+            for (int i = 1; i <= statement.getParameterMetaData().getParameterCount(); i++) {
+                statement.setObject(i, null);
+            }
+            return statement;
+        }, rs -> rs.next() ? rs.getString(1) : null);
+        assertNotNull(plan);
+        Matcher matcher = ORDERS_ACCESS.matcher(plan);
+        assertTrue(matcher.find(), plan);
+        return matcher.group(1);
+    }
+
+    private void assertUsesIndex(String index, String access) {
+        assertTrue(access.startsWith("public." + index + ":"), access);
+    }
+
+    @Test
+    void declaredIndexes_ExistWithTheirColumns() {
+        assertEquals(4, ORDER_INDEXES.length);
+        for (Index index : ORDER_INDEXES) {
+            List<String> columns = jdbcTemplate.queryForList("SELECT column_name FROM information_schema.index_columns"
+                    + " WHERE table_name = 'orders' AND index_name = ? ORDER BY ordinal_position",
+                    String.class, index.name());
+            assertEquals(Arrays.asList(index.columnList().split(",\\s*")), columns, index.name());
+        }
+    }
+
+    @Test
+    void byUser_UsesUserIndex() {
+        // Given
+        OrderSearchCriteria criteria = criteria();
+        criteria.setUserId(alice.getId());
+
+        // When & Then
+        assertEquals(2, search(criteria).size());
+        assertUsesIndex("idx_orders_user_created_at", ordersAccess());
+    }
+
+    @Test
+    void byUserDatesAndQuantity_UsesUserIndex() {
+        // Given
+        OrderSearchCriteria criteria = criteria();
+        criteria.setUserId(alice.getId());
+        criteria.setFrom(LocalDate.of(2025, 6, 2));
+        criteria.setTo(LocalDate.of(2025, 6, 30));
+        criteria.setMinQuantity(2);
+
+        // When
+        List<OrderSummary> orders = search(criteria);
+
+        // Then
+        assertEquals(1, orders.size());
+        assertEquals(5, orders.get(0).getQuantity());
+        assertUsesIndex("idx_orders_user_created_at", ordersAccess());
+    }
+
+    @Test
+    void byProduct_UsesProductIndex() {
+        // Given
+        OrderSearchCriteria criteria = criteria();
+        criteria.setProductId(laptop.getId());
+
+        // When & Then
+        assertEquals(2, search(criteria).size());
+        assertUsesIndex("idx_orders_product_order_date", ordersAccess());
+    }
+
+    @Test
+    void byProductAndDates_UsesProductIndex() {
+        // Given
+        OrderSearchCriteria criteria = criteria();
+        criteria.setProductId(laptop.getId());
+        criteria.setFrom(LocalDate.of(2025, 6, 5));
+        criteria.setTo(LocalDate.of(2025, 6, 30));
+
+        // When
+        List<OrderSummary> orders = search(criteria);
+
+        // Then
+        assertEquals(1, orders.size());
+        assertEquals("bob", orders.get(0).getUsername());
+        assertUsesIndex("idx_orders_product_order_date", ordersAccess());
+    }
+
+    @Test
+    void byDates_UsesOrderDateIndex() {
+        // Given
+        OrderSearchCriteria criteria = criteria();
+        criteria.setFrom(LocalDate.of(2025, 6, 5));
+
+        // When & Then
+        assertEquals(2, search(criteria).size());
+        assertUsesIndex("idx_orders_order_date", ordersAccess());
+    }
+
+    // Quantity alone has no index; MySQL reads idx_orders_created_at_id backwards until the page is full,
+    // which H2 cannot do, so only the result is checked here
+    @Test
+    void byQuantityOnly_FiltersNewestFirst() {
+        // Given
+        OrderSearchCriteria criteria = criteria();
+        criteria.setMaxQuantity(3);
+
+        // When
+        List<OrderSummary> orders = search(criteria);
+
+        // Then
+        assertEquals(2, orders.size());
+        assertEquals(3, orders.get(0).getQuantity());
+    }
+
+    @Test
+    void summaryVersions_MatchTheSummariesOfTheSamePage() {
+        // Given
+        OrderSearchCriteria criteria = criteria();
+        criteria.setUserId(alice.getId());
+        List<OrderSummary> orders = search(criteria);
+
+        // When
+        List<Object[]> versions = orderRepository.findSummaryVersions(OrderSpecifications.matching(criteria), 50);
+
+        // Then
+        assertEquals(orders.size(), versions.size());
+        for (int i = 0; i < orders.size(); i++) {
+            assertEquals(orders.get(i).getId(), versions.get(i)[0]);
+            assertEquals(orders.get(i).getUpdatedAt(), versions.get(i)[1]);
+            assertEquals(orders.get(i).getProductName(), versions.get(i)[2]);
+            assertEquals(orders.get(i).getProductPrice(), versions.get(i)[3]);
+            assertEquals("alice", versions.get(i)[4]);
+        }
+        assertUsesIndex("idx_orders_user_created_at", ordersAccess());
+    }
+
+    /**
+     * Remembers the SQL of the last statement Hibernate prepared
+     */
+    public static class LastStatement implements StatementInspector {
+
+        static volatile String sql;
+
+        @Override
+        public String inspect(String statement) {
+            sql = statement;
+            return statement;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.crud.repository;
+
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the set-based product statements against H2 in MySQL mode.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:product-bulk;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.MySQL8Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private Product laptop;
+    private Product phone;
+    private Product cable;
+
+    @BeforeEach
+    void setUp() {
+        laptop = entityManager.persist(new Product("Laptop", "", 1200.0));
+        phone = entityManager.persist(new Product("Phone", "", 799.99));
+        cable = entityManager.persist(new Product("Cable", "", 4.0));
+        User alice = entityManager.persist(new User("alice", "secret"));
+        entityManager.persist(new Order(LocalDate.of(2025, 6, 1), alice, laptop, 1, null));
+        entityManager.flush();
+    }
+
+    private double price(Product product) {
+        return productRepository.findById(product.getId()).map(Product::getPrice).orElseThrow(AssertionError::new);
+    }
+
+    @Test
+    void adjustPriceByIdIn_RoundsToCents() {
+        // Act
+        int updated = productRepository.adjustPriceByIdIn(Arrays.asList(phone.getId(), cable.getId()), 1.1, 0);
+
+        // Assert
+        assertEquals(2, updated);
+        assertEquals(879.99, price(phone));
+        assertEquals(4.4, price(cable));
+        assertEquals(1200.0, price(laptop));
+    }
+
+    @Test
+    void adjustPriceByPriceBetween_SkipsPricesThatWouldNotStayPositive() {
+        // Act
+        int updated = productRepository.adjustPriceByPriceBetween(0, 800, 1, -5);
+
+        // Assert
+        assertEquals(1, updated);
+        assertEquals(794.99, price(phone));
+        assertEquals(4.0, price(cable));
+    }
+
+    @Test
+    void deleteUnorderedByIdIn_KeepsOrderedProducts() {
+        // Act
+        int deleted = productRepository.deleteUnorderedByIdIn(Arrays.asList(laptop.getId(), phone.getId(), -1L));
+
+        // Assert
+        assertEquals(1, deleted);
+        assertTrue(productRepository.existsById(laptop.getId()));
+        assertFalse(productRepository.existsById(phone.getId()));
+    }
+}
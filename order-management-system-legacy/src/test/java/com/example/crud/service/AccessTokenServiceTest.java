@@ -0,0 +1,101 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.TokenResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(
+            "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+    private static final Instant NOW = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AppUserPrincipal user = new AppUserPrincipal(42L, "api", null, true, Set.of("API_USER", "USER"));
+
+    private AccessTokenService service(Instant now) {
+        return new AccessTokenService(objectMapper, SECRET, 3600, Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    void issueAndVerify_RoundTripsUserAndRoles() {
+        // Given
+        TokenResponse response = service(NOW).issue(user);
+
+        // When
+        Authentication authentication = service(NOW.plusSeconds(3599)).verify(response.getToken());
+
+        // Then
+        assertEquals("Bearer", response.getTokenType());
+        assertEquals(3600, response.getExpiresIn());
+        assertEquals(NOW, response.getIssuedAt());
+        assertEquals(42L, response.getUser().getId());
+        assertEquals("api", authentication.getName());
+        assertEquals(42L, ((AppUserPrincipal) authentication.getPrincipal()).getId());
+        assertTrue(authentication.isAuthenticated());
+        assertEquals(Set.of("ROLE_API_USER", "ROLE_USER"), authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void verify_RejectsExpiredTokens() {
+        // Given
+        String token = service(NOW).issue(user).getToken();
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> service(NOW.plusSeconds(3600)).verify(token));
+    }
+
+    @Test
+    void verify_RejectsTamperedClaims() {
+        // Given
+        String[] parts = service(NOW).issue(user).getToken().split("\\.");
+        String claims = new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8)
+                .replace("\"API_USER\"", "\"ADMIN\"");
+        String forged = parts[0] + "." + Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + "." + parts[2];
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> service(NOW).verify(forged));
+    }
+
+    @Test
+    void verify_RejectsUnsignedAndForeignTokens() {
+        // Given
+        String[] parts = service(NOW).issue(user).getToken().split("\\.");
+        String none = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"alg\":\"none\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+        String otherSecret = Base64.getEncoder().encodeToString(new byte[32]);
+        String foreign = new AccessTokenService(objectMapper, otherSecret, 3600, Clock.fixed(NOW, ZoneOffset.UTC))
+                .issue(user).getToken();
+        AccessTokenService service = service(NOW);
+
+        // When & Then
+        assertThrows(BadCredentialsException.class, () -> service.verify(none + "." + parts[1] + "."));
+        assertThrows(BadCredentialsException.class, () -> service.verify(foreign));
+        assertThrows(BadCredentialsException.class, () -> service.verify("not-a-token"));
+    }
+
+    @Test
+    void constructor_RejectsShortSecrets() {
+        // Given
+        String shortSecret = Base64.getEncoder().encodeToString(new byte[16]);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> new AccessTokenService(objectMapper, shortSecret, 3600, Clock.systemUTC()));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.crud.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CachingAuthenticationProviderTest {
+
+    @Mock
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private CachingAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        provider = new CachingAuthenticationProvider(userDetailsService, passwordEncoder, 100, 60_000);
+
+        when(userDetailsService.loadUserByUsername("api")).thenAnswer(invocation -> user());
+        when(passwordEncoder.matches(anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0).equals("api123"));
+    }
+
+    private AppUserPrincipal user() {
+        return new AppUserPrincipal(7L, "api", "{bcrypt}hash", true, Collections.singleton("API_USER"));
+    }
+
+    private Authentication login(String username, String password) {
+        return provider.authenticate(new UsernamePasswordAuthenticationToken(username, password));
+    }
+
+    @Test
+    void authenticate_VerifiesOnceThenServesFromCache() {
+        // Act
+        Authentication first = login("api", "api123");
+        Authentication second = login("api", "api123");
+
+        // Assert
+        assertTrue(first.isAuthenticated());
+        assertTrue(second.isAuthenticated());
+        assertEquals("api", second.getName());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertEquals(7L, ((AppUserPrincipal) second.getPrincipal()).getId());
+        assertNull(((AppUserPrincipal) second.getPrincipal()).getPassword());
+        verify(userDetailsService, times(1)).loadUserByUsername("api");
+        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
+    }
+
+    @Test
+    void authenticate_CredentialsVerifiedOnOneThreadAreCachedForOthers() throws Exception {
+        // Arrange
+        login("api", "api123");
+
+        // Act
+        CompletableFuture<Authentication> other = CompletableFuture.supplyAsync(() -> login("api", "api123"));
+
+        // Assert
+        assertEquals("api", other.get().getName());
+        verify(passwordEncoder, times(1)).matches(anyString(), anyString());
+    }
+
+    @Test
+    void authenticate_FailuresAndOtherPasswordsAreAlwaysVerified() {
+        // Arrange
+        login("api", "api123");
+
+        // Act & Assert
+        assertThrows(BadCredentialsException.class, () -> login("api", "wrong"));
+        assertThrows(BadCredentialsException.class, () -> login("api", "wrong"));
+        assertEquals(1, provider.getCachedCount());
+        verify(passwordEncoder, times(3)).matches(anyString(), anyString());
+    }
+
+    @Test
+    void invalidate_ForcesTheNextRequestToBeVerifiedAgain() {
+        // Arrange
+        login("api", "api123");
+
+        // Act
+        provider.invalidate("api");
+        login("api", "api123");
+
+        // Assert
+        verify(userDetailsService, times(2)).loadUserByUsername("api");
+        verify(passwordEncoder, times(2)).matches(anyString(), anyString());
+    }
+
+    @Test
+    void invalidate_LeavesOtherUsersCached() {
+        // Arrange
+        login("api", "api123");
+
+        // Act
+        provider.invalidate("admin");
+        login("api", "api123");
+
+        // Assert
+        verify(userDetailsService, times(1)).loadUserByUsername("api");
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentHashTest {
+
+    private Product product(String name, String description, Double price) {
+        Product product = new Product(name, description, price);
+        product.setId(1L);
+        product.setCreatedAt(new Date(0));
+        return product;
+    }
+
+    @Test
+    void of_IsStableForEqualContent() {
+        // Act & Assert
+        assertEquals(ContentHash.of(product("Laptop", "x", 1200.0)), ContentHash.of(product("Laptop", "x", 1200.0)));
+    }
+
+    @Test
+    void of_ChangesWithAnyRenderedField() {
+        // Arrange
+        long hash = ContentHash.of(product("Aa", null, 10.0));
+
+        // Act & Assert
+        assertNotEquals(hash, ContentHash.of(product("BB", null, 10.0)), "String.hashCode collision");
+        assertNotEquals(hash, ContentHash.of(product("Aa", "", 10.0)), "null and empty differ");
+        assertNotEquals(hash, ContentHash.of(product("Aa", null, 10.01)));
+        assertNotEquals(ContentHash.of(product("ab", "c", 1.0)), ContentHash.of(product("a", "bc", 1.0)));
+    }
+
+    @Test
+    void toETag_QuotesHexHash() {
+        // Act & Assert
+        assertEquals("\"ff\"", ContentHash.toETag(255));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.OrderSummary;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class OrderExportServiceTest {
+
+    private static final LocalDate FROM = LocalDate.of(2025, 6, 1);
+
+    @Mock
+    private OrderService orderService;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+
+    private OrderExportService orderExportService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        orderExportService = new OrderExportService(orderService, objectMapper);
+        ReflectionTestUtils.setField(orderExportService, "bufferBytes", 64);
+
+        OrderSummary plain = new OrderSummary(1L, LocalDate.of(2025, 6, 2), 2, 12_000_000.0, null,
+                new Date(0), new Date(0), 3L, "Laptop", 1200.0, 4L, "alice");
+        OrderSummary quoted = new OrderSummary(2L, LocalDate.of(2025, 6, 3), 1, 800.0, "rush, \"fragile\"\nback door",
+                new Date(0), new Date(0), 5L, "Phone", 800.0, 4L, "alice");
+        doAnswer(invocation -> {
+            Consumer<OrderSummary> consumer = invocation.getArgument(2);
+            consumer.accept(plain);
+            consumer.accept(quoted);
+            return null;
+        }).when(orderService).streamOrders(eq(FROM), isNull(), any());
+    }
+
+    @Test
+    void exportCsv_QuotesAndFormatsFields() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderExportService.export(DataFormat.CSV, FROM, null, false, out);
+
+        // Assert
+        assertEquals("id,order_date,created_at,user_id,username,product_id,product_name,quantity,unit_price,total,comments\n"
+                + "1,2025-06-02,1970-01-01T00:00:00Z,4,alice,3,Laptop,2,12000000,24000000,\n"
+                + "2,2025-06-03,1970-01-01T00:00:00Z,4,alice,5,Phone,1,800.0,800.0,\"rush, \"\"fragile\"\"\nback door\"\n",
+                out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    void exportNdjsonGzip_WritesOneOrderPerLine() throws IOException {
+        // Arrange
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // Act
+        orderExportService.export(DataFormat.NDJSON, FROM, null, true, out);
+
+        // Assert
+        String[] lines;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            lines = new String(in.readAllBytes(), StandardCharsets.UTF_8).split("\n", -1);
+        }
+        assertEquals(3, lines.length);
+        assertEquals("", lines[2]);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals(2, second.get("id").asLong());
+        assertEquals("2025-06-03", second.get("orderDate").asText());
+        assertTrue(lines[0].startsWith("{\"id\":1,"));
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.IntakeStatus;
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import com.example.crud.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OrderIntakeServiceTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Mock
+    private OrderService orderService;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private OrderIntakeService orderIntakeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        orderIntakeService = new OrderIntakeService(orderService, orderRepository, objectMapper);
+        ReflectionTestUtils.setField(orderIntakeService, "enabled", true);
+        ReflectionTestUtils.setField(orderIntakeService, "journalDir", journalDir.resolve("journal").toString());
+        ReflectionTestUtils.setField(orderIntakeService, "segmentBytes", 1L << 20);
+        ReflectionTestUtils.setField(orderIntakeService, "batchSize", 10);
+        ReflectionTestUtils.setField(orderIntakeService, "capacity", 100);
+        when(orderRepository.findExistingTrackingIds(anyCollection())).thenReturn(Collections.emptyList());
+        when(orderService.createOrders(anyList(), eq(0)))
+                .thenReturn(Collections.singletonList(BatchItemResult.created(0, 42L)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        orderIntakeService.stop();
+    }
+
+    private Order order() {
+        Product product = new Product();
+        product.setId(2L);
+        return new Order(LocalDate.of(2025, 6, 12), null, product, 1, null);
+    }
+
+    private User user() {
+        User user = new User("user", "secret");
+        user.setId(1L);
+        return user;
+    }
+
+    @Test
+    void submit_BeforeStart_IsRejectedWithoutJournaling() {
+        // Act & Assert
+        RejectedExecutionException e = assertThrows(RejectedExecutionException.class,
+                () -> orderIntakeService.submit(order(), user()));
+        assertEquals("Order intake is not running, retry later", e.getMessage());
+        assertFalse(Files.exists(journalDir.resolve("journal")));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void submit_AfterStart_IsJournaledAndCommitted() throws Exception {
+        // Arrange
+        orderIntakeService.start();
+
+        // Act
+        IntakeStatus status = orderIntakeService.submit(order(), user());
+
+        // Assert
+        assertNotNull(status.getTrackingId());
+        verify(orderService, timeout(5000)).createOrders(anyList(), eq(0));
+    }
+
+    @Test
+    void submit_AfterStop_IsRejected() throws Exception {
+        // Arrange
+        orderIntakeService.start();
+        orderIntakeService.stop();
+
+        // Act & Assert
+        assertThrows(RejectedExecutionException.class, () -> orderIntakeService.submit(order(), user()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.crud.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private OrderJournal.Entry entry(String trackingId) {
+        OrderJournal.Entry entry = new OrderJournal.Entry();
+        entry.trackingId = trackingId;
+        entry.userId = 1L;
+        entry.username = "user";
+        entry.orderDate = LocalDate.of(2025, 6, 12);
+        entry.productId = 2L;
+        entry.quantity = 3;
+        return entry;
+    }
+
+    private List<String> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    void uncommittedEntriesAreRecoveredOnReopen() throws Exception {
+        // Arrange
+        OrderJournal journal = new OrderJournal(directory, 1 << 20, objectMapper);
+        assertTrue(journal.open().isEmpty());
+        journal.append(entry("a"));
+        journal.append(entry("b"));
+        journal.close();
+
+        // Act
+        List<OrderJournal.Entry> recovered = new OrderJournal(directory, 1 << 20, objectMapper).open();
+
+        // Assert
+        assertEquals(2, recovered.size());
+        assertEquals("a", recovered.get(0).trackingId);
+        assertEquals(LocalDate.of(2025, 6, 12), recovered.get(1).orderDate);
+        assertEquals(3, recovered.get(1).quantity);
+    }
+
+    @Test
+    void truncatedLastRecordIsSkipped() throws Exception {
+        // Arrange
+        OrderJournal journal = new OrderJournal(directory, 1 << 20, objectMapper);
+        journal.open();
+        journal.append(entry("a"));
+        journal.close();
+        Files.write(directory.resolve("orders-1.log"), "{\"trackingId\":\"b\",\"us".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        // Act
+        List<OrderJournal.Entry> recovered = new OrderJournal(directory, 1 << 20, objectMapper).open();
+
+        // Assert
+        assertEquals(1, recovered.size());
+        assertEquals("a", recovered.get(0).trackingId);
+    }
+
+    @Test
+    void committedSegmentsAreDeletedAfterRotation() throws Exception {
+        // Arrange: tiny segments so every append rotates
+        OrderJournal journal = new OrderJournal(directory, 1, objectMapper);
+        journal.open();
+        List<OrderJournal.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderJournal.Entry entry = entry("t" + i);
+            journal.append(entry);
+            entries.add(entry);
+        }
+
+        // Act
+        journal.markCommitted(entries.subList(0, 2));
+
+        // Assert: the third segment still holds a pending order, the fourth is the open one
+        assertEquals(Arrays.asList("orders-3.log", "orders-4.log"), segmentFiles());
+        journal.markCommitted(Collections.singletonList(entries.get(2)));
+        assertEquals(Collections.singletonList("orders-4.log"), segmentFiles());
+        journal.close();
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.crud.service;
+
+import com.example.crud.config.CacheConfig;
+import com.example.crud.dto.BatchGetItem;
+import com.example.crud.dto.OrderSummary;
+import com.example.crud.model.Order;
+import com.example.crud.model.Product;
+import com.example.crud.model.User;
+import com.example.crud.repository.OrderRepository;
+import com.example.crud.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import javax.persistence.EntityNotFoundException;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OrderServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private LogService logService;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private SalesRollupService salesRollupService;
+
+    private OrderServiceImpl orderService;
+
+    private Cache userOrdersCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(CacheConfig.USER_ORDERS);
+        userOrdersCache = cacheManager.getCache(CacheConfig.USER_ORDERS);
+        userOrdersCache.put(1L, Collections.emptyList());
+        userOrdersCache.put(2L, Collections.emptyList());
+        orderService = new OrderServiceImpl(orderRepository, productRepository, logService, validator,
+                salesRollupService, cacheManager);
+    }
+
+    private Order order(Long id, Long userId) {
+        User user = new User();
+        user.setId(userId);
+        Product product = new Product();
+        product.setId(3L);
+        Order order = new Order(LocalDate.of(2025, 6, 1), user, product, 2, null);
+        order.setId(id);
+        return order;
+    }
+
+    private OrderSummary summary(Long id, Long userId, Long productId, Double unitPrice) {
+        return new OrderSummary(id, LocalDate.of(2025, 6, 1), 1, unitPrice, null, new Date(), new Date(),
+                productId, "Laptop", 1200.0, userId, "testuser");
+    }
+
+    @Test
+    void getOrderSummaries_ChecksOwnerPerOrderInOneQuery() {
+        // Arrange
+        OrderSummary others = new OrderSummary(6L, LocalDate.of(2025, 6, 1), 1, 10.0, null, new Date(), new Date(),
+                3L, "Laptop", 1200.0, 2L, "someone");
+        when(orderRepository.findSummariesByIdIn(new HashSet<>(Arrays.asList(5L, 9L, 6L))))
+                .thenReturn(Arrays.asList(others, summary(5L, 1L, 3L, 10.0)));
+
+        // Act
+        List<BatchGetItem<OrderSummary>> results = orderService.getOrderSummaries(
+                Arrays.asList(5L, 9L, 6L, 5L), "testuser", false);
+
+        // Assert
+        assertEquals(Arrays.asList(BatchGetItem.Status.FOUND, BatchGetItem.Status.NOT_FOUND,
+                        BatchGetItem.Status.FORBIDDEN, BatchGetItem.Status.FOUND),
+                results.stream().map(BatchGetItem::getStatus).collect(Collectors.toList()));
+        assertEquals(5L, results.get(3).getItem().getId());
+        assertNull(results.get(2).getItem());
+        verify(orderRepository, times(1)).findSummariesByIdIn(anySet());
+    }
+
+    @Test
+    void createOrder_EvictsOwnerOnly() {
+        // Arrange
+        Order order = order(10L, 1L);
+        Product product = new Product("Laptop", "", 1200.0);
+        product.setId(3L);
+        when(productRepository.findById(3L)).thenReturn(Optional.of(product));
+        when(orderRepository.save(any(Order.class))).thenReturn(order);
+
+        // Act
+        orderService.createOrder(order);
+
+        // Assert
+        assertEquals(1200.0, order.getUnitPrice());
+        verify(salesRollupService).added(anyList());
+        assertNull(userOrdersCache.get(1L));
+        assertNotNull(userOrdersCache.get(2L));
+    }
+
+    @Test
+    void createOrder_UnknownProduct() {
+        // Arrange
+        when(productRepository.findById(3L)).thenReturn(Optional.empty());
+
+        // Act & Assert
+        assertThrows(EntityNotFoundException.class, () -> orderService.createOrder(order(null, 1L)));
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(salesRollupService);
+    }
+
+    @Test
+    void updateOrderAsAdmin_KeepsOwnerCreationTimeAndTrackingId() {
+        // Arrange: the web form posts neither owner, creation time nor tracking id
+        Order stored = order(10L, 1L);
+        stored.setUnitPrice(999.0);
+        Date createdAt = new Date(1_000L);
+        stored.setCreatedAt(createdAt);
+        stored.setTrackingId("tracking-1");
+        when(orderRepository.findWithDetailsById(10L)).thenReturn(Optional.of(stored));
+        Product product = new Product();
+        product.setId(3L);
+        Order posted = new Order(LocalDate.of(2025, 6, 2), null, product, 4, "rush");
+
+        // Act
+        Order updated = orderService.updateOrder(10L, posted, "admin", true).orElse(null);
+
+        // Assert
+        assertSame(stored, updated);
+        assertEquals(4, updated.getQuantity());
+        assertEquals("rush", updated.getComments());
+        assertEquals(1L, updated.getUser().getId());
+        assertSame(createdAt, updated.getCreatedAt());
+        assertEquals("tracking-1", updated.getTrackingId());
+        assertEquals(999.0, updated.getUnitPrice(), "same product keeps its price snapshot");
+        verify(orderRepository, never()).save(any(Order.class));
+        verify(orderRepository).flush();
+        verify(productRepository, never()).findById(anyLong());
+        verify(salesRollupService).changed(any(), any());
+        assertNull(userOrdersCache.get(1L));
+        assertNotNull(userOrdersCache.get(2L));
+    }
+
+    @Test
+    void deleteOrder_EvictsOwner() {
+        // Arrange
+        when(orderRepository.findSummaryById(10L)).thenReturn(Optional.of(summary(10L, 2L, 3L, 1200.0)));
+
+        // Act
+        orderService.deleteOrder(10L);
+
+        // Assert
+        verify(orderRepository).deleteByIdAndUserId(10L, 2L);
+        verify(salesRollupService).removed(any());
+        assertNotNull(userOrdersCache.get(1L));
+        assertNull(userOrdersCache.get(2L));
+    }
+
+    @Test
+    void updateOrderAsOwner_ChecksOwnershipAndUpdatesInPlace() {
+        // Arrange
+        Order current = order(10L, 1L);
+        current.setUnitPrice(999.0);
+        when(orderRepository.findWithDetailsByIdAndUsername(10L, "testuser")).thenReturn(Optional.of(current));
+        Product product = new Product();
+        product.setId(3L);
+        Order changes = new Order(LocalDate.of(2025, 6, 2), null, product, 4, "rush");
+
+        // Act
+        Order updated = orderService.updateOrder(10L, changes, "testuser", false).orElse(null);
+
+        // Assert
+        assertSame(current, updated);
+        assertEquals(4, updated.getQuantity());
+        assertEquals("rush", updated.getComments());
+        assertEquals(999.0, updated.getUnitPrice());
+        verify(orderRepository).flush();
+        verify(orderRepository, never()).findById(anyLong());
+        verify(productRepository, never()).findById(anyLong());
+        verify(salesRollupService).changed(any(), any());
+        assertNull(userOrdersCache.get(1L));
+    }
+
+    @Test
+    void updateOrderWithNewProduct_TakesItsCurrentPrice() {
+        // Arrange
+        when(orderRepository.findWithDetailsById(10L)).thenReturn(Optional.of(order(10L, 2L)));
+        Product product = new Product("Phone", "", 800.0);
+        product.setId(4L);
+        when(productRepository.findById(4L)).thenReturn(Optional.of(product));
+
+        // Act
+        Order updated = orderService.updateOrder(10L, new Order(LocalDate.of(2025, 6, 2), null, product, 1, null),
+                "admin", true).orElse(null);
+
+        // Assert
+        assertNotNull(updated);
+        assertSame(product, updated.getProduct());
+        assertEquals(800.0, updated.getUnitPrice());
+        verify(orderRepository, never()).findWithDetailsByIdAndUsername(anyLong(), any());
+    }
+
+    @Test
+    void updateOrderOfAnotherUser_ReturnsEmpty() {
+        // Arrange
+        when(orderRepository.findWithDetailsByIdAndUsername(10L, "testuser")).thenReturn(Optional.empty());
+        Product product = new Product();
+        product.setId(3L);
+
+        // Act
+        Optional<Order> updated = orderService.updateOrder(10L,
+                new Order(LocalDate.of(2025, 6, 2), null, product, 4, null), "testuser", false);
+
+        // Assert
+        assertFalse(updated.isPresent());
+        verify(orderRepository, never()).flush();
+        verifyNoInteractions(salesRollupService);
+    }
+
+    @Test
+    void deleteOrderAsOwner_DeletesByIdAndOwner() {
+        // Arrange
+        when(orderRepository.findSummaryByIdAndUsername(10L, "testuser"))
+                .thenReturn(Optional.of(summary(10L, 1L, 3L, 1200.0)));
+        when(orderRepository.deleteByIdAndUserId(10L, 1L)).thenReturn(1);
+
+        // Act & Assert
+        assertTrue(orderService.deleteOrder(10L, "testuser", false));
+        verify(salesRollupService).removed(any());
+        assertNull(userOrdersCache.get(1L));
+        assertNotNull(userOrdersCache.get(2L));
+    }
+
+    @Test
+    void deleteOrderAsAdmin_SkipsOwnerFilter() {
+        // Arrange
+        when(orderRepository.findSummaryById(10L)).thenReturn(Optional.of(summary(10L, 2L, 3L, 1200.0)));
+        when(orderRepository.deleteByIdAndUserId(10L, 2L)).thenReturn(1);
+
+        // Act & Assert
+        assertTrue(orderService.deleteOrder(10L, "admin", true));
+        verify(orderRepository, never()).findSummaryByIdAndUsername(anyLong(), any());
+        assertNull(userOrdersCache.get(2L));
+    }
+}
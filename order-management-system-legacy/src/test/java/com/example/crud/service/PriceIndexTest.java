@@ -0,0 +1,73 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceIndexTest {
+
+    private PriceIndex index;
+
+    @BeforeEach
+    void setUp() {
+        List<Product> products = Arrays.asList(
+                product(1L, 50.0), product(2L, 10.0), product(3L, 25.0), product(4L, 25.0), product(5L, 80.0));
+        index = new PriceIndex(products);
+    }
+
+    private Product product(Long id, Double price) {
+        Product product = new Product("Product " + id, "", price);
+        product.setId(id);
+        return product;
+    }
+
+    private List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void range_IncludesBoundsOrderedByPriceThenId() {
+        // Act & Assert
+        assertEquals(Arrays.asList(3L, 4L, 1L), ids(index.range(25.0, 50.0, false, 0, 10)));
+        assertEquals(3, index.count(25.0, 50.0));
+        assertEquals(Arrays.asList(1L, 4L, 3L), ids(index.range(25.0, 50.0, true, 0, 10)));
+        assertTrue(index.range(60.0, 70.0, false, 0, 10).isEmpty());
+        assertEquals(0, index.count(60.0, 70.0));
+    }
+
+    @Test
+    void range_TopNAndPages() {
+        // Act & Assert
+        double all = Double.POSITIVE_INFINITY;
+        assertEquals(Arrays.asList(2L, 3L), ids(index.range(-all, all, false, 0, 2)));
+        assertEquals(Arrays.asList(5L, 1L), ids(index.range(-all, all, true, 0, 2)));
+        assertEquals(Arrays.asList(4L, 1L), ids(index.range(-all, all, false, 2, 2)));
+        assertEquals(Arrays.asList(5L), ids(index.range(-all, all, false, 4, 2)));
+        assertTrue(index.range(-all, all, false, 5, 2).isEmpty());
+    }
+
+    @Test
+    void with_MovesAddsAndRemovesOneProduct() {
+        // Arrange
+        double all = Double.POSITIVE_INFINITY;
+        Product cheaper = product(1L, 5.0);
+
+        // Act
+        PriceIndex moved = index.with(product(1L, 50.0), cheaper);
+        PriceIndex added = moved.with(null, product(6L, 25.0));
+        PriceIndex removed = added.with(product(4L, 25.0), null);
+
+        // Assert
+        assertEquals(Arrays.asList(1L, 2L, 3L, 4L, 5L), ids(moved.range(-all, all, false, 0, 10)));
+        assertSame(cheaper, moved.range(5.0, 5.0, false, 0, 10).get(0));
+        assertEquals(Arrays.asList(3L, 4L, 6L), ids(added.range(25.0, 25.0, false, 0, 10)));
+        assertEquals(Arrays.asList(3L, 6L), ids(removed.range(25.0, 25.0, false, 0, 10)));
+        assertEquals(5, index.count(-all, all), "the original index is never modified");
+    }
+}
@@ -0,0 +1,194 @@
+package com.example.crud.service;
+
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.model.Product;
+import com.example.crud.model.ProductSales;
+import com.example.crud.repository.ProductRepository;
+import com.example.crud.repository.ProductSalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Sort;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProductCatalogTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private ProductSalesRepository productSalesRepository;
+
+    private ProductCatalog productCatalog;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        // Suggestion rebuilds run inline
+        productCatalog = new ProductCatalog(productRepository, productSalesRepository, Runnable::run);
+    }
+
+    private Product product(Long id, String name) {
+        Product product = new Product(name, "", 10.0);
+        product.setId(id);
+        return product;
+    }
+
+    private ProductSales sales(Long productId, long orderCount) {
+        ProductSales sales = mock(ProductSales.class);
+        when(sales.getProductId()).thenReturn(productId);
+        when(sales.getOrderCount()).thenReturn(orderCount);
+        return sales;
+    }
+
+    @Test
+    void reads_LoadOnceThenServeFromMemory() {
+        // Arrange
+        when(productRepository.findAll(any(Sort.class)))
+                .thenReturn(Arrays.asList(product(1L, "Laptop"), product(2L, "Phone")));
+
+        // Act
+        List<Product> all = productCatalog.getAll();
+
+        // Assert
+        assertEquals(2, all.size());
+        assertEquals("Phone", productCatalog.get(2L).map(Product::getName).orElse(null));
+        assertFalse(productCatalog.get(3L).isPresent());
+        assertThrows(UnsupportedOperationException.class, () -> all.add(product(3L, "Tablet")));
+        verify(productRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void productChange_PatchesOnlyTheChangedProduct() {
+        // Arrange
+        Product phone = product(3L, "Phone");
+        when(productRepository.findAll(any(Sort.class)))
+                .thenReturn(Arrays.asList(product(1L, "Laptop"), phone));
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product(1L, "Laptop Pro")));
+        when(productRepository.findById(2L)).thenReturn(Optional.of(product(2L, "Tablet")));
+        List<Product> before = productCatalog.getAll();
+        long hashBefore = productCatalog.getContentHash();
+
+        // Act
+        productCatalog.onProductChange(new ProductChangeEvent(1L, ProductChangeEvent.Type.UPDATED));
+        productCatalog.onProductChange(new ProductChangeEvent(2L, ProductChangeEvent.Type.CREATED));
+
+        // Assert
+        assertEquals(2, before.size(), "earlier snapshots are never modified");
+        assertEquals(Arrays.asList(1L, 2L, 3L),
+                productCatalog.getAll().stream().map(Product::getId).collect(Collectors.toList()));
+        assertEquals("Laptop Pro", productCatalog.get(1L).map(Product::getName).orElse(null));
+        assertSame(phone, productCatalog.get(3L).orElse(null));
+        assertEquals(2L, productCatalog.search("tablet", 5).get(0).getId());
+        assertTrue(productCatalog.search("laptop pro", 5).stream().anyMatch(product -> product.getId() == 1L));
+        assertEquals(3, productCatalog.countByPrice(0, 100));
+        assertEquals(2L, productCatalog.suggest("tab", 5).get(0).getId());
+        assertNotEquals(hashBefore, productCatalog.getContentHash());
+        verify(productRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void productChange_DeletedProductLeavesEveryIndex() {
+        // Arrange
+        when(productRepository.findAll(any(Sort.class)))
+                .thenReturn(Arrays.asList(product(1L, "Laptop"), product(2L, "Laptop Sleeve")));
+        when(productRepository.findById(2L)).thenReturn(Optional.empty());
+        productCatalog.getAll();
+
+        // Act
+        productCatalog.onProductChange(new ProductChangeEvent(2L, ProductChangeEvent.Type.DELETED));
+
+        // Assert
+        assertFalse(productCatalog.contains(2L));
+        assertEquals(1, productCatalog.getAll().size());
+        assertEquals(Arrays.asList(1L), productCatalog.search("laptop", 5).stream()
+                .map(Product::getId).collect(Collectors.toList()));
+        assertEquals(1, productCatalog.countByPrice(0, 100));
+        assertEquals(1, productCatalog.suggest("lap", 5).size());
+        verify(productRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void productChange_SameContentKeepsTheHash() {
+        // Arrange
+        when(productRepository.findAll(any(Sort.class)))
+                .thenReturn(Arrays.asList(product(1L, "Laptop"), product(2L, "Phone")));
+        when(productRepository.findById(2L)).thenReturn(Optional.of(product(2L, "Phone")));
+        long hashBefore = productCatalog.getContentHash();
+
+        // Act
+        productCatalog.onProductChange(new ProductChangeEvent(2L, ProductChangeEvent.Type.UPDATED));
+
+        // Assert
+        assertEquals(hashBefore, productCatalog.getContentHash());
+    }
+
+    @Test
+    void bulkChange_ReloadsEveryProduct() {
+        // Arrange
+        when(productRepository.findAll(any(Sort.class)))
+                .thenReturn(Collections.singletonList(product(1L, "Laptop")))
+                .thenReturn(Arrays.asList(product(1L, "Laptop Pro"), product(2L, "Phone")));
+        productCatalog.getAll();
+
+        // Act
+        productCatalog.onProductChange(new ProductChangeEvent(null, ProductChangeEvent.Type.IMPORTED));
+
+        // Assert
+        assertEquals(2, productCatalog.getAll().size());
+        assertEquals("Laptop Pro", productCatalog.get(1L).map(Product::getName).orElse(null));
+        verify(productRepository, times(2)).findAll(any(Sort.class));
+        verify(productRepository, never()).findById(any());
+    }
+
+    @Test
+    void popularityRefresh_ReranksSuggestionsWithoutReloadingProducts() {
+        // Arrange
+        when(productRepository.findAll(any(Sort.class)))
+                .thenReturn(Arrays.asList(product(1L, "Laptop"), product(2L, "Laptop Sleeve")));
+        List<ProductSales> before = Collections.singletonList(sales(1L, 3));
+        List<ProductSales> after = Arrays.asList(sales(1L, 3), sales(2L, 7));
+        when(productSalesRepository.findAll()).thenReturn(before).thenReturn(after);
+        assertEquals(1L, productCatalog.suggest("lap", 5).get(0).getId());
+
+        // Act
+        productCatalog.refreshPopularity();
+
+        // Assert
+        assertEquals(2L, productCatalog.suggest("lap", 5).get(0).getId());
+        verify(productRepository, times(1)).findAll(any(Sort.class));
+    }
+
+    @Test
+    void periodicRefresh_PicksUpChangesMadeOnAnotherInstance() {
+        // Arrange: another instance repriced product 1 and deleted product 2, without any event reaching this one
+        Product repriced = new Product("Laptop", "", 12.0);
+        repriced.setId(1L);
+        when(productRepository.findAll(any(Sort.class)))
+                .thenReturn(Arrays.asList(product(1L, "Laptop"), product(2L, "Phone")))
+                .thenReturn(Collections.singletonList(repriced))
+                .thenThrow(new IllegalStateException("database unavailable"));
+        long hashBefore = productCatalog.getContentHash();
+
+        // Act
+        productCatalog.refreshPeriodically();
+        long hashAfter = productCatalog.getContentHash();
+        productCatalog.refreshPeriodically();
+
+        // Assert: a failed reload keeps serving the last snapshot
+        assertEquals(12.0, productCatalog.get(1L).map(Product::getPrice).orElse(null));
+        assertFalse(productCatalog.contains(2L));
+        assertNotEquals(hashBefore, hashAfter);
+        assertEquals(hashAfter, productCatalog.getContentHash());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.ProductChange;
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ProductChangeFeedTest {
+
+    @Mock
+    private ProductCatalog productCatalog;
+
+    private ProductChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        feed = new ProductChangeFeed(productCatalog);
+        ReflectionTestUtils.setField(feed, "replaySize", 3);
+        ReflectionTestUtils.setField(feed, "timeout", 1000L);
+        feed.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        feed.stop();
+    }
+
+    private long publish(ProductChangeEvent.Type type, Long productId) {
+        feed.onProductChange(new ProductChangeEvent(productId, type));
+        return (long) ReflectionTestUtils.getField(feed, "version");
+    }
+
+    private List<Long> versions(List<ProductChange> changes) {
+        return changes.stream().map(ProductChange::getVersion).collect(Collectors.toList());
+    }
+
+    @Test
+    void changes_CarryCommittedProductAndIncreasingVersions() {
+        // Arrange
+        Product laptop = new Product("Laptop", "", 1200.0);
+        laptop.setId(1L);
+        when(productCatalog.get(1L)).thenReturn(Optional.of(laptop));
+        long start = (long) ReflectionTestUtils.getField(feed, "version");
+
+        // Act
+        long created = publish(ProductChangeEvent.Type.CREATED, 1L);
+        long deleted = publish(ProductChangeEvent.Type.DELETED, 1L);
+
+        // Assert
+        List<ProductChange> missed = feed.replaySince(Long.toString(start));
+        assertEquals(Arrays.asList(created, deleted), versions(missed));
+        assertSame(laptop, missed.get(0).getProduct());
+        assertNull(missed.get(1).getProduct());
+        assertEquals(ProductChangeEvent.Type.DELETED, missed.get(1).getType());
+        verify(productCatalog, times(1)).get(1L);
+    }
+
+    @Test
+    void replaySince_OnlyResumesFromKeptVersions() {
+        // Arrange
+        long v1 = publish(ProductChangeEvent.Type.DELETED, 1L);
+        long v2 = publish(ProductChangeEvent.Type.DELETED, 2L);
+        long v3 = publish(ProductChangeEvent.Type.DELETED, 3L);
+        long v4 = publish(ProductChangeEvent.Type.DELETED, 4L);
+
+        // Act & Assert
+        assertEquals(Arrays.asList(v3, v4), versions(feed.replaySince(Long.toString(v2))));
+        assertEquals(Arrays.asList(v2, v3, v4), versions(feed.replaySince(Long.toString(v1))));
+        assertTrue(feed.replaySince(Long.toString(v4)).isEmpty());
+        assertNull(feed.replaySince(Long.toString(v1 - 1)), "evicted from the ring");
+        assertNull(feed.replaySince(Long.toString(v4 + 1)), "never issued");
+        assertNull(feed.replaySince("12345"), "from before a restart");
+        assertNull(feed.replaySince(null));
+        assertNull(feed.replaySince("abc"));
+    }
+
+    @Test
+    void subscribe_RegistersUntilCompleted() {
+        // Act
+        feed.subscribe(null);
+        feed.subscribe("abc");
+
+        // Assert
+        assertEquals(2, feed.getSubscriberCount());
+        feed.stop();
+        assertEquals(0, feed.getSubscriberCount());
+    }
+}
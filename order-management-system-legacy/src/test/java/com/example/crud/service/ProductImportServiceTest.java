@@ -0,0 +1,168 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.dto.DataFormat;
+import com.example.crud.dto.ImportStatus;
+import com.example.crud.event.ProductChangeEvent;
+import com.example.crud.model.Product;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.validation.Validation;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+public class ProductImportServiceTest {
+
+    @Mock
+    private ProductService productService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ProductImportService productImportService;
+
+    // Every chunk handed to the upsert, in order
+    private final List<Map<Integer, Product>> upserts = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        productImportService = new ProductImportService(productService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), eventPublisher);
+        ReflectionTestUtils.setField(productImportService, "chunkSize", 2);
+        ReflectionTestUtils.setField(productImportService, "parallelism", 2);
+        ReflectionTestUtils.setField(productImportService, "maxErrors", 10);
+        productImportService.start();
+        when(productService.upsertProducts(anyMap())).thenAnswer(invocation -> {
+            Map<Integer, Product> products = invocation.getArgument(0);
+            upserts.add(products);
+            List<BatchItemResult> results = new ArrayList<>();
+            products.forEach((index, product) -> results.add("Laptop".equalsIgnoreCase(product.getName())
+                    ? BatchItemResult.updated(index, 1L) : BatchItemResult.created(index, 100L + index)));
+            return results;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        productImportService.stop();
+    }
+
+    private ImportStatus run(DataFormat format, String content) throws IOException {
+        Path file = Files.createTempFile("product-import-test-", "." + format.getExtension());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        ImportStatus status = new ImportStatus("job", format.getExtension(), 10);
+        productImportService.run(status, format, file);
+        assertFalse(Files.exists(file), "spooled file is deleted");
+        return status;
+    }
+
+    @Test
+    void csvImport_UpsertsValidRowsAndReportsRejectedOnes() throws IOException {
+        // Arrange
+        String csv = "\uFEFFPrice,Name,Description\n"
+                + "1200,Laptop,\"15\"\", 16GB\"\n"
+                + "abc,Mouse,\n"
+                + "\n"
+                + "25,\"Multi\nline\",x\n"
+                + "-5,Cable,\n"
+                + "30,\"MULTI\nLINE\",y\n";
+
+        // Act
+        ImportStatus status = run(DataFormat.CSV, csv);
+
+        // Assert
+        assertEquals(ImportStatus.State.COMPLETED, status.getState());
+        assertEquals(5, status.getRowsRead());
+        assertEquals(1, status.getUpdated());
+        assertEquals(2, status.getCreated());
+        assertEquals(2, status.getInvalid());
+        assertEquals(Arrays.asList(1, 3), Arrays.asList(status.getErrors().get(0).getIndex(),
+                status.getErrors().get(1).getIndex()));
+        assertTrue(status.getErrors().get(0).getErrors().get(0).startsWith("price: Not a number"));
+        Product laptop = upserts.get(0).get(0);
+        assertEquals("15\", 16GB", laptop.getDescription());
+        assertEquals(1200.0, laptop.getPrice());
+        assertEquals("Multi\nline", upserts.get(1).get(2).getName());
+        verify(eventPublisher).publishEvent(any(ProductChangeEvent.class));
+    }
+
+    @Test
+    void ndjsonImport_KeepsLastRowOfRepeatedNames() throws IOException {
+        // Arrange
+        String ndjson = "{\"name\":\"Phone\",\"price\":500}\n"
+                + "{\"name\":\" phone \",\"price\":450,\"description\":\"newer\"}\n"
+                + "{\"name\":\"Tablet\",\"price\":\n";
+
+        // Act
+        ImportStatus status = run(DataFormat.NDJSON, ndjson);
+
+        // Assert
+        assertEquals(ImportStatus.State.COMPLETED, status.getState());
+        assertEquals(1, status.getDuplicates());
+        assertEquals(1, status.getCreated());
+        assertEquals(1, status.getInvalid());
+        Product phone = upserts.get(0).get(1);
+        assertEquals("phone", phone.getName());
+        assertEquals(450.0, phone.getPrice());
+        assertTrue(status.getErrors().get(0).getErrors().get(0).startsWith("Malformed product"));
+    }
+
+    @Test
+    void csvImport_WithoutPriceColumn_Fails() throws IOException {
+        // Act
+        ImportStatus status = run(DataFormat.CSV, "name,description\nLaptop,x\n");
+
+        // Assert
+        assertEquals(ImportStatus.State.FAILED, status.getState());
+        assertTrue(status.getMessage().contains("'price'"));
+        verifyNoInteractions(productService, eventPublisher);
+    }
+
+    @Test
+    void upsertFailure_MarksChunkFailed() throws IOException {
+        // Arrange
+        reset(productService);
+        when(productService.upsertProducts(anyMap())).thenThrow(new IllegalStateException("deadlock"));
+
+        // Act
+        ImportStatus status = run(DataFormat.CSV, "name,price\nA,1\nB,2\nC,3\n");
+
+        // Assert
+        assertEquals(ImportStatus.State.COMPLETED, status.getState());
+        assertEquals(3, status.getFailed());
+        assertEquals("Chunk rolled back: deadlock", status.getErrors().get(0).getErrors().get(0));
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void csvParser_HandlesQuotesAndCrlf() throws IOException {
+        // Arrange
+        ProductImportService.CsvParser parser = new ProductImportService.CsvParser(
+                new StringReader("a,\"b,\"\"c\"\"\"\r\n,\r\n"));
+
+        // Act & Assert
+        assertArrayEquals(new String[]{"a", "b,\"c\""}, parser.next());
+        assertArrayEquals(new String[]{"", ""}, parser.next());
+        assertNull(parser.next());
+    }
+}
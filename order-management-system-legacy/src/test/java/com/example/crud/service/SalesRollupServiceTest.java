@@ -0,0 +1,119 @@
+package com.example.crud.service;
+
+import com.example.crud.repository.DailySalesRepository;
+import com.example.crud.repository.OrderRepository;
+import com.example.crud.repository.ProductSalesRepository;
+import com.example.crud.repository.UserSalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class SalesRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 6, 1);
+
+    @Mock
+    private DailySalesRepository dailySalesRepository;
+
+    @Mock
+    private ProductSalesRepository productSalesRepository;
+
+    @Mock
+    private UserSalesRepository userSalesRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    private SalesRollupService salesRollupService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        salesRollupService = new SalesRollupService(dailySalesRepository, productSalesRepository,
+                userSalesRepository, orderRepository);
+    }
+
+    private static BigDecimal money(String value) {
+        return new BigDecimal(value);
+    }
+
+    @Test
+    void added_CombinesOrdersSharingARow() {
+        // Act
+        salesRollupService.added(Arrays.asList(
+                new SalesRollupService.Sale(DAY, 3L, 1L, 2, 10.0),
+                new SalesRollupService.Sale(DAY, 3L, 2L, 1, 10.0)));
+
+        // Assert
+        verify(dailySalesRepository).addDelta(DAY, 2, 3, money("30.00"));
+        verify(productSalesRepository).addDelta(3L, 2, 3, money("30.00"));
+        verify(userSalesRepository).addDelta(1L, 1, 2, money("20.00"));
+        verify(userSalesRepository).addDelta(2L, 1, 1, money("10.00"));
+    }
+
+    @Test
+    void changed_QuantityOnly_SendsTheDifference() {
+        // Act
+        salesRollupService.changed(new SalesRollupService.Sale(DAY, 3L, 1L, 2, 10.0),
+                new SalesRollupService.Sale(DAY, 3L, 1L, 5, 10.0));
+
+        // Assert
+        verify(dailySalesRepository).addDelta(DAY, 0, 3, money("30.00"));
+        verify(productSalesRepository).addDelta(3L, 0, 3, money("30.00"));
+        verify(userSalesRepository).addDelta(1L, 0, 3, money("30.00"));
+    }
+
+    @Test
+    void changed_OnlyComments_WritesNothing() {
+        // Act
+        salesRollupService.changed(new SalesRollupService.Sale(DAY, 3L, 1L, 2, 10.0),
+                new SalesRollupService.Sale(DAY, 3L, 1L, 2, 10.0));
+
+        // Assert
+        verify(dailySalesRepository, never()).addDelta(any(), anyLong(), anyLong(), any(BigDecimal.class));
+        verify(productSalesRepository, never()).addDelta(any(), anyLong(), anyLong(), any(BigDecimal.class));
+        verify(userSalesRepository, never()).addDelta(any(), anyLong(), anyLong(), any(BigDecimal.class));
+    }
+
+    @Test
+    void changed_NewProduct_MovesTheOrderBetweenProductRows() {
+        // Act
+        salesRollupService.changed(new SalesRollupService.Sale(DAY, 3L, 1L, 2, 10.0),
+                new SalesRollupService.Sale(DAY, 4L, 1L, 2, 25.0));
+
+        // Assert
+        verify(productSalesRepository).addDelta(3L, -1, -2, money("-20.00"));
+        verify(productSalesRepository).addDelta(4L, 1, 2, money("50.00"));
+        verify(dailySalesRepository).addDelta(DAY, 0, 0, money("30.00"));
+        verify(userSalesRepository).addDelta(1L, 0, 0, money("30.00"));
+    }
+
+    @Test
+    void added_RevenueAddsUpExactly() {
+        // Arrange
+        List<SalesRollupService.Sale> sales = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            sales.add(new SalesRollupService.Sale(DAY, 3L, 1L, 1, 0.1));
+        }
+
+        // Act
+        salesRollupService.added(sales);
+        salesRollupService.changed(new SalesRollupService.Sale(DAY, 3L, 1L, 3, 0.1),
+                new SalesRollupService.Sale(DAY, 3L, 1L, 3, 0.1));
+
+        // Assert
+        verify(dailySalesRepository).addDelta(DAY, 10, 10, money("1.00"));
+        verify(dailySalesRepository, times(1)).addDelta(any(), anyLong(), anyLong(), any(BigDecimal.class));
+    }
+}
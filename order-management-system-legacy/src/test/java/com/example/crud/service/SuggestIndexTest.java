@@ -0,0 +1,104 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SuggestIndexTest {
+
+    private SuggestIndex index;
+
+    // Every product created by the test, for the index to resolve its ids
+    private final Map<Long, Product> byId = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        Map<Long, Long> popularity = new HashMap<>();
+        popularity.put(1L, 5L);
+        popularity.put(3L, 9L);
+        popularity.put(4L, 1L);
+        index = new SuggestIndex(Arrays.asList(
+                product(1L, "Gaming Laptop"),
+                product(2L, "Laptop"),
+                product(3L, "Laptop Sleeve"),
+                product(4L, "Lamp"),
+                product(5L, "Crème Brûlée Torch"),
+                product(6L, "Lap Desk")), popularity);
+    }
+
+    private Product product(Long id, String name) {
+        Product product = new Product(name, "", 10.0);
+        product.setId(id);
+        byId.put(id, product);
+        return product;
+    }
+
+    private List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void suggest_MatchesNameAndWordStartsByPopularity() {
+        // Act & Assert
+        assertEquals(Arrays.asList(3L, 1L, 2L), ids(index.suggest("lapt", 10, byId::get)));
+        assertEquals(Arrays.asList(3L, 1L, 4L, 6L, 2L), ids(index.suggest("LA", 10, byId::get)));
+        assertEquals(Arrays.asList(5L), ids(index.suggest("creme bru", 10, byId::get)));
+        assertEquals(Arrays.asList(6L), ids(index.suggest("lap ", 10, byId::get)));
+    }
+
+    @Test
+    void suggest_SplitEdgesAndMissesResolve() {
+        // Act & Assert
+        assertEquals(Arrays.asList(4L), ids(index.suggest("lam", 10, byId::get)));
+        assertEquals(Arrays.asList(3L), ids(index.suggest("laptop s", 10, byId::get)));
+        assertTrue(index.suggest("laptops", 10, byId::get).isEmpty());
+        assertTrue(index.suggest("x", 10, byId::get).isEmpty());
+    }
+
+    @Test
+    void suggest_BlankPrefixAndLimits() {
+        // Act & Assert
+        assertEquals(Arrays.asList(3L, 1L), ids(index.suggest("  ", 2, byId::get)));
+        assertEquals(Arrays.asList(3L), ids(index.suggest("la", 1, byId::get)));
+        assertTrue(index.suggest("la", 0, byId::get).isEmpty());
+    }
+
+    @Test
+    void suggest_SkipsProductsNoLongerInTheCatalog() {
+        // Arrange
+        byId.remove(3L);
+
+        // Act & Assert
+        assertEquals(Arrays.asList(1L, 2L), ids(index.suggest("lapt", 10, byId::get)));
+        assertEquals(Arrays.asList(1L), ids(index.suggest("la", 1, byId::get)));
+    }
+
+    @Test
+    void suggest_KeepsOnlyTheMostPopularPerNode() {
+        // Arrange
+        List<Product> products = new ArrayList<>();
+        Map<Long, Long> popularity = new HashMap<>();
+        for (long id = 1; id <= 50; id++) {
+            products.add(product(id, "Item " + id));
+            popularity.put(id, id);
+        }
+        SuggestIndex large = new SuggestIndex(products, popularity);
+
+        // Act
+        List<Product> result = large.suggest("item", 100, byId::get);
+
+        // Assert
+        assertEquals(SuggestIndex.MAX_SUGGESTIONS, result.size());
+        assertEquals(50L, result.get(0).getId());
+        assertEquals(31L, result.get(SuggestIndex.MAX_SUGGESTIONS - 1).getId());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.crud.service;
+
+import com.example.crud.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrigramIndexTest {
+
+    private TrigramIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TrigramIndex(Arrays.asList(
+                product(1L, "Gaming Laptop", "High refresh rate display"),
+                product(2L, "Laptop", "Thin and light"),
+                product(3L, "Laptop Sleeve", "Fits 15 inch notebooks"),
+                product(4L, "Wireless Mouse", "Works with any laptop"),
+                product(5L, "Café Crème Mug", "Ceramic, 350 ml")));
+    }
+
+    private Product product(Long id, String name, String description) {
+        Product product = new Product(name, description, 10.0);
+        product.setId(id);
+        return product;
+    }
+
+    private List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    @Test
+    void search_RanksNamePrefixThenNameThenDescription() {
+        // Act
+        List<Product> result = index.search("laptop", 10);
+
+        // Assert
+        assertEquals(Arrays.asList(2L, 3L, 1L, 4L), ids(result));
+    }
+
+    @Test
+    void search_ToleratesTyposAndAccents() {
+        // Act & Assert
+        assertTrue(ids(index.search("lptop", 10)).contains(2L));
+        assertEquals(Arrays.asList(5L), ids(index.search("CAFE creme", 10)));
+        assertTrue(index.search("keyboard", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShortQueryScansAndLimitApplies() {
+        // Act & Assert
+        assertEquals(Arrays.asList(4L), ids(index.search("mo", 10)));
+        assertEquals(Arrays.asList(2L, 3L), ids(index.search("laptop", 2)));
+        assertTrue(index.search("  ", 10).isEmpty());
+    }
+
+    @Test
+    void with_ReplacesAddsAndEmptiesSlots() {
+        // Act
+        TrigramIndex renamed = index.with(1, product(2L, "Desk Lamp", "Thin and light"));
+        TrigramIndex added = renamed.with(renamed.slots(), product(6L, "Laptop Stand", "Aluminium"));
+        TrigramIndex removed = added.with(2, null);
+
+        // Assert
+        assertEquals(Arrays.asList(3L, 1L, 4L), ids(renamed.search("laptop", 10)));
+        assertEquals(Arrays.asList(2L), ids(renamed.search("lamp", 10)));
+        assertEquals(Arrays.asList(6L, 3L, 1L, 4L), ids(added.search("laptop", 10)));
+        assertEquals(Arrays.asList(6L, 1L, 4L), ids(removed.search("laptop", 10)));
+        assertEquals(6, removed.slots());
+        assertTrue(removed.search("sleeve", 10).isEmpty());
+        assertTrue(removed.search("sl", 10).isEmpty());
+        assertEquals(Arrays.asList(2L, 3L, 1L, 4L), ids(index.search("laptop", 10)), "the original is unchanged");
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.crud.service;
+
+import com.example.crud.dto.BatchItemResult;
+import com.example.crud.model.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.validation.Validation;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class UserProvisioningServiceTest {
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private UserProvisioningService userProvisioningService;
+
+    // Every chunk handed to the insert, in order
+    private final List<Map<Integer, User>> inserts = new ArrayList<>();
+    // Every username list handed to the existence check, in order
+    private final List<Collection<String>> lookups = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        userProvisioningService = new UserProvisioningService(userService, passwordEncoder,
+                Validation.buildDefaultValidatorFactory().getValidator());
+        ReflectionTestUtils.setField(userProvisioningService, "chunkSize", 2);
+        ReflectionTestUtils.setField(userProvisioningService, "parallelism", 2);
+        userProvisioningService.start();
+        when(passwordEncoder.encode(anyString())).thenAnswer(invocation -> "hashed:" + invocation.getArgument(0));
+        when(userService.findExistingUsernames(anyCollection())).thenAnswer(invocation -> {
+            lookups.add(new ArrayList<>(invocation.<Collection<String>>getArgument(0)));
+            return Collections.singletonList("admin");
+        });
+        when(userService.insertUsers(anyMap())).thenAnswer(invocation -> {
+            Map<Integer, User> users = invocation.getArgument(0);
+            inserts.add(users);
+            List<BatchItemResult> results = new ArrayList<>();
+            users.keySet().forEach(index -> results.add(BatchItemResult.created(index, 100L + index)));
+            return results;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        userProvisioningService.stop();
+    }
+
+    private static List<BatchItemResult.Status> statuses(List<BatchItemResult> results) {
+        return results.stream().map(BatchItemResult::getStatus).collect(Collectors.toList());
+    }
+
+    @Test
+    void createUsers_ReportsOneOutcomePerUserInSubmissionOrder() {
+        // Arrange
+        List<User> users = Arrays.asList(
+                new User("alice", "secret1"),
+                new User("ADMIN", "secret2"),
+                new User("x", "secret3"),
+                new User("bob", "secret4"),
+                new User("Alice", "secret5"));
+
+        // Act
+        List<BatchItemResult> results = userProvisioningService.createUsers(users);
+
+        // Assert
+        assertEquals(Arrays.asList(BatchItemResult.Status.CREATED, BatchItemResult.Status.DUPLICATE,
+                BatchItemResult.Status.INVALID, BatchItemResult.Status.CREATED, BatchItemResult.Status.DUPLICATE),
+                statuses(results));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4),
+                results.stream().map(BatchItemResult::getIndex).collect(Collectors.toList()));
+        assertEquals(100L, results.get(0).getId());
+        assertEquals("username: Username already exists", results.get(1).getErrors().get(0));
+        assertTrue(results.get(2).getErrors().get(0).startsWith("username:"));
+        assertEquals(2, inserts.size());
+        assertEquals("hashed:secret1", inserts.get(0).get(0).getPassword());
+        assertEquals("hashed:secret4", inserts.get(1).get(3).getPassword());
+        // Taken and repeated usernames are never hashed
+        verify(passwordEncoder, times(2)).encode(anyString());
+    }
+
+    @Test
+    void createUsers_ChecksUsernamesOncePerChunk() {
+        // Arrange
+        List<User> users = Arrays.asList(
+                new User("carol", "secret1"),
+                new User("dave", "secret2"),
+                new User("erin", "secret3"));
+
+        // Act
+        userProvisioningService.createUsers(users);
+
+        // Assert
+        assertEquals(Arrays.asList(Arrays.asList("carol", "dave"), Collections.singletonList("erin")), lookups);
+        verify(userService, never()).usernameExists(anyString());
+    }
+
+    @Test
+    void createUsers_RolledBackChunkFailsAsAWhole() {
+        // Arrange
+        when(userService.insertUsers(anyMap()))
+                .thenThrow(new IllegalStateException("Duplicate entry"))
+                .thenAnswer(invocation -> Collections.singletonList(BatchItemResult.created(2, 7L)));
+        List<User> users = Arrays.asList(
+                new User("carol", "secret1"),
+                new User("dave", "secret2"),
+                new User("erin", "secret3"));
+
+        // Act
+        List<BatchItemResult> results = userProvisioningService.createUsers(users);
+
+        // Assert
+        assertEquals(Arrays.asList(BatchItemResult.Status.FAILED, BatchItemResult.Status.FAILED,
+                BatchItemResult.Status.CREATED), statuses(results));
+        assertEquals("Chunk rolled back: Duplicate entry", results.get(0).getErrors().get(0));
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.crud.service;
 
+import com.example.crud.dto.KeysetPage;
 import com.example.crud.model.User;
 import com.example.crud.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -7,6 +8,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.Pageable;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import javax.persistence.EntityNotFoundException;
@@ -17,6 +19,7 @@ import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class UserServiceTest {
@@ -27,6 +30,9 @@ public class UserServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private CachingAuthenticationProvider authenticationProvider;
+
     @InjectMocks
     private UserServiceImpl userService;
 
@@ -60,6 +66,26 @@ public class UserServiceTest {
         verify(userRepository, times(1)).findAll();
     }
 
+    @Test
+    void getUsersPage_ReturnsCursorOnlyWhenMoreUsersFollow() {
+        // Arrange
+        User user2 = new User("testuser2", "password");
+        User user3 = new User("testuser3", "password");
+        when(userRepository.findAllByOrderByUsernameAsc(any(Pageable.class))).thenReturn(Arrays.asList(user, user2, user3));
+        when(userRepository.findByUsernameGreaterThanOrderByUsernameAsc(eq("testuser2"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(user3));
+
+        // Act
+        KeysetPage<User> first = userService.getUsersPage(null, 2);
+        KeysetPage<User> last = userService.getUsersPage(first.getNextCursor(), 2);
+
+        // Assert
+        assertEquals(Arrays.asList(user, user2), first.getItems());
+        assertEquals("testuser2", first.getNextCursor());
+        assertEquals(Arrays.asList(user3), last.getItems());
+        assertNull(last.getNextCursor());
+    }
+
     @Test
     void getUserById() {
         // Arrange
@@ -119,6 +145,8 @@ public class UserServiceTest {
         assertTrue(result.getRoles().contains("ADMIN"));
         verify(passwordEncoder, times(1)).encode("newpassword");
         verify(userRepository, times(1)).save(any(User.class));
+        verify(authenticationProvider).invalidate("testuser");
+        verify(authenticationProvider).invalidate("updateduser");
     }
 
     @Test
@@ -135,24 +163,26 @@ public class UserServiceTest {
     @Test
     void deleteUser() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(true);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
 
         // Act
         userService.deleteUser(1L);
 
         // Assert
         verify(userRepository, times(1)).deleteById(1L);
+        verify(authenticationProvider).invalidate("testuser");
     }
 
     @Test
     void deleteUserNotFound() {
         // Arrange
-        when(userRepository.existsById(1L)).thenReturn(false);
+        when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         // Act & Assert
         assertThrows(EntityNotFoundException.class, () -> 
             userService.deleteUser(1L)
         );
+        verify(userRepository, never()).deleteById(1L);
     }
 
     @Test